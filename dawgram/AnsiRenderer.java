@@ -0,0 +1,369 @@
+/**
+* A console renderer for a Dawgram puzzle that redraws only what has changed, using ANSI escape
+* sequences, so large puzzles stay usable over slow links.
+*
+* The board is laid out exactly as DawgramUI.display() lays it out, and kept at the top of the
+* screen: the lines below it are made a scrolling region for the menu and prompts.  The renderer
+* keeps the last frame it sent.  It observes the puzzle, noting the cells and lines that change;
+* render() then works out only those cells and solved/invalid markers afresh and, for each
+* screen line, sends a cursor move and the run of characters that differ from the last frame
+* (saving and restoring the cursor around them, so the prompt is left where it was).
+*
+* redraw() clears the screen and sends the whole frame, e.g. after the terminal has been
+* disturbed.
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Observable;
+import java.util.Observer;
+
+
+@SuppressWarnings("deprecation")
+public class AnsiRenderer implements Observer {
+    /**
+     * Constructor (nothing is sent until render() or redraw())
+     *
+     * @param puzzle the dawgram puzzle to show (the renderer observes it)
+     * @param out where to send the output, e.g. System.out
+     */
+    public AnsiRenderer(Dawgram puzzle, PrintStream out) {
+        if (puzzle == null)
+            throw new IllegalArgumentException("puzzle cannot be null");
+
+        if (out == null)
+            throw new IllegalArgumentException("out cannot be null");
+
+        this.puzzle  = puzzle;
+        this.out     = out;
+        this.numRows = puzzle.getNumRows();
+        this.numCols = puzzle.getNumCols();
+
+        int[][] rowNums       = new int[numRows][];
+        int[][] colNums       = new int[numCols][];
+        int     maxRowNumsLen = 0;
+        int     maxColNumsLen = 0;
+
+        for (int row=0; row<numRows; row++) {
+            rowNums[row]  = puzzle.getRowNums(row);
+            maxRowNumsLen = Math.max(maxRowNumsLen, rowNums[row].length);
+        }
+
+        for (int col=0; col<numCols; col++) {
+            colNums[col]  = puzzle.getColNums(col);
+            maxColNumsLen = Math.max(maxColNumsLen, colNums[col].length);
+        }
+
+        idxWidth  = DawgramUI.numWidth(Math.max(numRows, numCols)-1);
+        clueWidth = DawgramUI.clueWidth(puzzle);
+        pad       = maxRowNumsLen*(clueWidth+1) + idxWidth + 3;
+        alertY    = maxColNumsLen*clueWidth + 2;
+        gridY     = alertY + idxWidth + 2;
+        height    = gridY + numRows + 1;
+        frame     = new char[height][];
+        shown     = new char[height][];
+        dirtyY    = new BitSet(height);
+        cells     = new BitSet(numRows*numCols);
+        lines     = new BitSet(numRows+numCols);
+
+        layout(rowNums, colNums, maxRowNumsLen, maxColNumsLen);
+
+        puzzle.addObserver(this);
+    }
+
+    /**
+     * Lay out the parts of the frame that never change (the clues, indices and rules), with
+     * every cell and marker still to be worked out
+     */
+    private void layout(int[][] rowNums, int[][] colNums, int maxRowNumsLen, int maxColNumsLen) {
+        for (int y=0; y<height; y++) {
+            frame[y] = new char[pad + numCols];
+            Arrays.fill(frame[y], ' ');
+        }
+
+        Arrays.fill(frame[0], pad, pad+numCols, '-');
+        Arrays.fill(frame[alertY-1], pad, pad+numCols, '-');
+
+        // wide clues and indices are written downwards
+        for (int col=0; col<numCols; col++) {
+            for (int i=0; i<colNums[col].length; i++)
+                put(1 + i*clueWidth, pad+col, DawgramUI.numAsString(colNums[col][i], clueWidth), true);
+
+            put(alertY+1, pad+col, DawgramUI.numAsString(col, idxWidth), true);
+        }
+
+        for (int row=0; row<numRows; row++) {
+            char[] text = frame[gridY+row];
+            int    x    = 0;
+
+            text[x++] = '[';
+
+            for (int i=0; i<rowNums[row].length; i++) {
+                if (i > 0)
+                    x++;
+
+                put(gridY+row, x, DawgramUI.numAsString(rowNums[row][i], clueWidth), false);
+                x += clueWidth;
+            }
+
+            text[x] = ']';
+            put(gridY+row, pad-1-idxWidth, DawgramUI.numAsString(row, idxWidth), false);
+        }
+
+        // every cell and marker needs working out
+        cells.set(0, numRows*numCols);
+        lines.set(0, numRows+numCols);
+        all = true;
+    }
+
+    /**
+     * Write text into the frame, across or downwards
+     */
+    private void put(int y, int x, String text, boolean down) {
+        for (int i=0; i<text.length(); i++)
+            if (down)
+                frame[y+i][x] = text.charAt(i);
+            else
+                frame[y][x+i] = text.charAt(i);
+    }
+
+    /**
+     * Show unknown and empty cells alike as blank (e.g. once solved), or not
+     *
+     * @param showFullOnly show all non full cells as blank
+     */
+    public void setShowFullOnly(boolean showFullOnly) {
+        if (showFullOnly != this.showFullOnly) {
+            this.showFullOnly = showFullOnly;
+            cells.set(0, numRows*numCols);
+        }
+    }
+
+    /**
+     * The puzzle has changed: note the cells and lines touched
+     *
+     * @param o the puzzle
+     * @param arg what changed (a Cell, a List of Assign, or anything else for everything)
+     */
+    @Override
+    public void update(Observable o, Object arg) {
+        if (arg instanceof Cell) {
+            Cell cell = (Cell) arg;
+
+            changed(cell.getRow(), cell.getCol());
+        } else if (arg instanceof List) {
+            for (Object move : (List<?>) arg)
+                if (move instanceof Assign)
+                    changed(((Assign) move).getRow(), ((Assign) move).getCol());
+        } else {
+            cells.set(0, numRows*numCols);
+            lines.set(0, numRows+numCols);
+        }
+    }
+
+    /**
+     * Note a changed cell
+     */
+    private void changed(int row, int col) {
+        cells.set(row*numCols + col);
+        lines.set(row);
+        lines.set(numRows + col);
+    }
+
+    /**
+     * Bring the screen up to date, sending only the characters that differ from the last frame
+     * (or the whole frame the first time)
+     */
+    public void render() {
+        update();
+
+        if (all) {
+            redraw();
+
+            return;
+        }
+
+        StringBuffer sb = new StringBuffer();
+
+        for (int y=dirtyY.nextSetBit(0); y>=0; y=dirtyY.nextSetBit(y+1)) {
+            char[] want = frame[y];
+            char[] have = shown[y];
+            int    x    = 0;
+
+            while (x < want.length) {
+                if (want[x] == have[x]) {
+                    x++;
+                    continue;
+                }
+
+                // a run of changes, bridging gaps too short to be worth another cursor move
+                int end  = x + 1;
+                int same = 0;
+
+                for (int i=end; (i<want.length) && (same<=MAX_GAP); i++) {
+                    if (want[i] == have[i]) {
+                        same++;
+                    } else {
+                        same = 0;
+                        end  = i + 1;
+                    }
+                }
+
+                if (sb.length() == 0)
+                    sb.append(SAVE_CURSOR);
+
+                sb.append(CSI).append(y+1).append(';').append(x+1).append('H');
+                sb.append(want, x, end-x);
+                System.arraycopy(want, x, have, x, end-x);
+                x = end;
+            }
+        }
+
+        dirtyY.clear();
+
+        if (sb.length() > 0) {
+            sb.append(RESTORE_CURSOR);
+            send(sb);
+        }
+    }
+
+    /**
+     * Clear the screen and send the whole frame, then leave the cursor at the top of the
+     * scrolling region below the board
+     */
+    public void redraw() {
+        update();
+
+        StringBuffer sb = new StringBuffer();
+
+        sb.append(CSI).append('r');     // no scrolling region
+        sb.append(CSI).append("2J");    // clear the screen
+        sb.append(CSI).append('H');     // home
+
+        for (int y=0; y<height; y++) {
+            sb.append(frame[y]).append('\n');
+            shown[y] = frame[y].clone();
+        }
+
+        sb.append(CSI).append(height+1).append('r');                // scroll only below the board
+        sb.append(CSI).append(height+1).append(";1H");
+        dirtyY.clear();
+        all = false;
+
+        send(sb);
+    }
+
+    /**
+     * Leave the screen as a normal terminal again (no scrolling region) and stop observing
+     */
+    public void close() {
+        puzzle.deleteObserver(this);
+        send(new StringBuffer().append(CSI).append('r').append(CSI).append("999;1H"));
+    }
+
+    /**
+     * Work out the changed cells and markers afresh, into the frame
+     */
+    private void update() {
+        for (int i=cells.nextSetBit(0); i>=0; i=cells.nextSetBit(i+1)) {
+            int  row   = i / numCols;
+            int  col   = i % numCols;
+            int  state = puzzle.getState(row, col);
+            char c     = showFullOnly ? ((state == Dawgram.FULL) ? DawgramUI.FULL_CHAR : ' ') : DawgramUI.stateAsChar(state);
+
+            set(gridY+row, pad+col, c);
+        }
+
+        for (int line=lines.nextSetBit(0); line>=0; line=lines.nextSetBit(line+1)) {
+            if (line < numRows)
+                set(gridY+line, pad-2-idxWidth, alertChar(puzzle.isRowSolved(line), puzzle.isRowValid(line)));
+            else
+                set(alertY, pad+line-numRows, alertChar(puzzle.isColSolved(line-numRows), puzzle.isColValid(line-numRows)));
+        }
+
+        cells.clear();
+        lines.clear();
+    }
+
+    /**
+     * Set a character of the frame, noting its screen line as dirty if it changes
+     */
+    private void set(int y, int x, char c) {
+        if (frame[y][x] != c) {
+            frame[y][x] = c;
+            dirtyY.set(y);
+        }
+    }
+
+    /**
+     * The marker for a line, as DawgramUI shows it
+     */
+    private static char alertChar(boolean solved, boolean valid) {
+        if (solved)
+            return DawgramUI.SOLVED_CHAR;
+        else if (!valid)
+            return DawgramUI.INVALID_CHAR;
+        else
+            return ' ';
+    }
+
+    /**
+     * Send output in one write
+     */
+    private void send(StringBuffer sb) {
+        out.print(sb);
+        out.flush();
+        bytesSent += sb.length();
+    }
+
+    /**
+     * Retrieve the height of the board in screen lines (the scrolling region starts below it)
+     *
+     * @return the number of lines
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Retrieve the number of characters sent so far (escape sequences included)
+     *
+     * @return the number of characters
+     */
+    public long getCharsSent() {
+        return bytesSent;
+    }
+
+    private static final String CSI            = "\u001b[";
+    private static final String SAVE_CURSOR    = "\u001b7";
+    private static final String RESTORE_CURSOR = "\u001b8";
+    private static final int    MAX_GAP        = 6; // unchanged chars cheaper to resend than to skip
+
+    private Dawgram     puzzle       = null;
+    private PrintStream out          = null;
+    private int         numRows      = -1;
+    private int         numCols      = -1;
+    private int         pad          = 0;     // the width of the row clues, indices and markers
+    private int         idxWidth     = 1;     // the characters in a row or column index
+    private int         clueWidth    = 1;     // the characters in a clue
+    private int         alertY       = 0;     // the screen line of the column markers
+    private int         gridY        = 0;     // the screen line of the first row of cells
+    private int         height       = 0;
+    private char[][]    frame        = null;  // what the screen should show
+    private char[][]    shown        = null;  // what was last sent
+    private BitSet      dirtyY       = null;  // screen lines where frame may differ from shown
+    private BitSet      cells        = null;  // cells changed since the last render
+    private BitSet      lines        = null;  // lines changed since the last render
+    private boolean     all          = true;  // nothing sent yet
+    private boolean     showFullOnly = false;
+    private long        bytesSent    = 0;
+}
@@ -33,6 +33,20 @@ public class Assign {
     this.state = state;
   }
   
+  /**
+   * Constructor
+   * 
+   * @param row the row of the cell to be assigned
+   * @param col the column of the cell to be assigned
+   * @param state the assignment (will be EMPTY, FULL or UNKNOWN)
+   * @param auto true if the assignment was filled in automatically (by auto-fill), not by the player
+   */
+  public Assign(int row, int col, int state, boolean auto) {
+    this(row, col, state);
+    
+    this.auto = auto;
+  }
+  
   /**
    * Retrieve the cell row
    * 
@@ -60,6 +74,15 @@ public class Assign {
     return state;
   }
   
+  /**
+   * Was the assignment filled in automatically?
+   * 
+   * @return true if auto-fill made the assignment, false if the player did
+   */
+  public boolean isAuto() {
+    return auto;
+  }
+  
   /**
    * String representation of the assignment (useful for debugging)
    * 
@@ -77,4 +100,5 @@ public class Assign {
   private int row   = 0;
   private int col   = 0;
   private int state = Dawgram.UNKNOWN;
+  private boolean auto = false;
 }
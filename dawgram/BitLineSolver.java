@@ -0,0 +1,443 @@
+/**
+* A bit-parallel line solver for a Dawgram puzzle.
+*
+* The line is held as "can be full" and "can be empty" bit masks (one bit per cell, in a single long
+* for lines of up to 64 cells, otherwise in a long[] of words).  A forward pass finds, for every
+* block, the start positions consistent with the cells before it, and the same pass over the
+* reversed line finds those consistent with the cells after it.  Both passes work a whole word at a
+* time with shifts, AND/OR and an add-with-carry "fill" through runs of possibly empty cells, so
+* the deduction itself never loops over individual cells.  It deduces exactly the same cells as
+* the DPLineSolver.
+*
+* Instances keep scratch buffers between calls and so are not thread safe: use one per thread.
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+
+public class BitLineSolver implements LineSolver {
+    /**
+     * Deduce as many cells of a line as possible from its pattern of contiguous full cells
+     *
+     * @param nums the pattern of contiguous full cells for the line
+     * @param line the cell states of the line (FULL, EMPTY or UNKNOWN), updated in place
+     * @return true if the line is consistent with the pattern, false on a contradiction
+     */
+    @Override
+    public boolean solve(int[] nums, byte[] line) {
+        if (!NGPattern.checkNums(nums))
+            throw new IllegalArgumentException("nums invalid");
+
+        if (line == null)
+            throw new IllegalArgumentException("line cannot be null");
+
+        if (line.length == 0)
+            throw new IllegalArgumentException("line cannot be empty");
+
+        if (line.length <= 64)
+            return solveWord(nums, line);
+        else
+            return solveWords(nums, line);
+    }
+
+    /**
+     * Solve a line of up to 64 cells held in single longs
+     */
+    private boolean solveWord(int[] nums, byte[] line) {
+        int  n     = line.length;
+        int  k     = nums.length;
+        long full  = 0;
+        long empty = 0;
+
+        for (int i=0; i<n; i++) {
+            if (line[i] == Dawgram.FULL)
+                full  |= 1L << i;
+            else if (line[i] == Dawgram.EMPTY)
+                empty |= 1L << i;
+        }
+
+        long all = (n == 64) ? -1L : (1L << n) - 1;
+        long cf  = all & ~empty; // can be full
+        long ce  = all & ~full;  // can be empty
+
+        if (wordStarts.length < k) {
+            wordStarts    = new long[k];
+            wordReach     = new long[k+1];
+            wordRevStarts = new long[k];
+            wordRevReach  = new long[k+1];
+        }
+
+        forward(cf, ce, nums, false, wordStarts, wordReach);
+        forward(reverse(cf, n), reverse(ce, n), nums, true, wordRevStarts, wordRevReach);
+
+        long canFull  = 0;
+        long canEmpty = 0;
+
+        for (int j=0; j<k; j++) {
+            // starts valid from both sides; a reversed start r is an original start n-r-len
+            long valid = wordStarts[j] & (reverse(wordRevStarts[k-1-j], n) >>> (nums[j]-1));
+
+            if (valid == 0)
+                return false;
+
+            canFull |= spread(valid, nums[j]);
+        }
+
+        // a cell can be empty if it can be reached through empties both from the end of
+        // block j-1 (or the line start) and from the start of block j (or the line end)
+        for (int j=0; j<=k; j++)
+            canEmpty |= wordReach[j] & reverse(wordRevReach[k-j], n);
+
+        long unknown = all & ~full & ~empty;
+
+        if ((unknown & ~canFull & ~canEmpty) != 0)
+            return false;
+
+        for (long set = unknown & canFull & ~canEmpty; set != 0; set &= set-1)
+            line[Long.numberOfTrailingZeros(set)] = Dawgram.FULL;
+
+        for (long set = unknown & canEmpty & ~canFull; set != 0; set &= set-1)
+            line[Long.numberOfTrailingZeros(set)] = Dawgram.EMPTY;
+
+        return true;
+    }
+
+    /**
+     * Forward pass over a single word line: the start positions of each block consistent with
+     * the cells before it, and the cells reachable through empties after each block
+     *
+     * @param cf the can be full mask
+     * @param ce the can be empty mask
+     * @param nums the pattern of contiguous full cells
+     * @param reversed take the blocks in reverse order
+     * @param starts the start positions of each block (output)
+     * @param reach reach[0] the empty cells from the line start, reach[j+1] after block j (output)
+     */
+    private static void forward(long cf, long ce, int[] nums, boolean reversed, long[] starts, long[] reach) {
+        int k = nums.length;
+
+        reach[0] = fill(ce, 1L);
+
+        for (int j=0; j<k; j++) {
+            int  len  = reversed ? nums[k-1-j] : nums[j];
+            long prev = (j == 0) ? (1L | (reach[0] << 1)) : (reach[j] << 1);
+
+            starts[j]  = runs(cf, len) & prev;
+            reach[j+1] = fill(ce, (len < 64) ? (starts[j] << len) : 0);
+        }
+    }
+
+    /**
+     * The cells of m reachable from a seed in t by moving up through cells of m, found with a
+     * single add: the carry from a seed ripples through the rest of its run of m
+     *
+     * @param m the mask of passable cells
+     * @param t the seed cells
+     * @return the reachable cells (including the seeds in m)
+     */
+    private static long fill(long m, long t) {
+        t &= m;
+
+        return (m & ~(m + t)) | t;
+    }
+
+    /**
+     * The start positions of runs of at least len consecutive bits (by doubling)
+     *
+     * @param m the mask
+     * @param len the run length
+     * @return the start positions
+     */
+    private static long runs(long m, int len) {
+        for (int got=1; got<len; ) {
+            int step = Math.min(got, len-got);
+
+            m   &= m >>> step;
+            got += step;
+        }
+
+        return m;
+    }
+
+    /**
+     * The cells covered by blocks of length len at each of a set of start positions (by doubling)
+     *
+     * @param starts the start positions
+     * @param len the block length
+     * @return the covered cells
+     */
+    private static long spread(long starts, int len) {
+        for (int got=1; got<len; ) {
+            int step = Math.min(got, len-got);
+
+            starts |= starts << step;
+            got    += step;
+        }
+
+        return starts;
+    }
+
+    /**
+     * Reverse the order of the low n bits
+     */
+    private static long reverse(long m, int n) {
+        return Long.reverse(m) >>> (64-n);
+    }
+
+    /**
+     * Solve a line of more than 64 cells held in arrays of words; the same passes as solveWord
+     */
+    private boolean solveWords(int[] nums, byte[] line) {
+        int n = line.length;
+        int k = nums.length;
+        int w = (n+63) >>> 6;
+
+        ensureCapacity(k, w);
+
+        for (int i=0; i<w; i++) {
+            cf[i] = 0;
+            ce[i] = 0;
+        }
+
+        for (int i=0; i<n; i++) {
+            if (line[i] != Dawgram.FULL)
+                ce[i >>> 6] |= 1L << i;
+            if (line[i] != Dawgram.EMPTY)
+                cf[i >>> 6] |= 1L << i;
+        }
+
+        top = ((n & 63) == 0) ? -1L : (1L << n) - 1;
+
+        forward(cf, ce, nums, false, starts, reach, w);
+
+        reverse(cf, n, revCf, w);
+        reverse(ce, n, revCe, w);
+        forward(revCf, revCe, nums, true, revStarts, revReach, w);
+
+        for (int i=0; i<w; i++) {
+            canFull[i]  = 0;
+            canEmpty[i] = 0;
+        }
+
+        for (int j=0; j<k; j++) {
+            reverse(revStarts[k-1-j], n, tmp, w);
+            shr(tmp, nums[j]-1, tmp, w);
+
+            long any = 0;
+
+            for (int i=0; i<w; i++) {
+                tmp[i] &= starts[j][i];
+                any    |= tmp[i];
+            }
+
+            if (any == 0)
+                return false;
+
+            spread(tmp, nums[j], tmp2, w);
+
+            for (int i=0; i<w; i++)
+                canFull[i] |= tmp[i];
+        }
+
+        for (int j=0; j<=k; j++) {
+            reverse(revReach[k-j], n, tmp, w);
+
+            for (int i=0; i<w; i++)
+                canEmpty[i] |= reach[j][i] & tmp[i];
+        }
+
+        for (int i=0; i<w; i++) {
+            long unknown = cf[i] & ce[i];
+
+            if ((unknown & ~canFull[i] & ~canEmpty[i]) != 0)
+                return false;
+
+            for (long set = unknown & canFull[i] & ~canEmpty[i]; set != 0; set &= set-1)
+                line[(i << 6) + Long.numberOfTrailingZeros(set)] = Dawgram.FULL;
+
+            for (long set = unknown & canEmpty[i] & ~canFull[i]; set != 0; set &= set-1)
+                line[(i << 6) + Long.numberOfTrailingZeros(set)] = Dawgram.EMPTY;
+        }
+
+        return true;
+    }
+
+    /**
+     * Forward pass over a multi-word line (see the single word forward)
+     */
+    private void forward(long[] cf, long[] ce, int[] nums, boolean reversed, long[][] starts, long[][] reach, int w) {
+        int k = nums.length;
+
+        for (int i=0; i<w; i++)
+            tmp[i] = 0;
+
+        tmp[0] = 1L;
+        fill(ce, tmp, reach[0], w);
+
+        for (int j=0; j<k; j++) {
+            int len = reversed ? nums[k-1-j] : nums[j];
+
+            runs(cf, len, starts[j], tmp2, w);
+            shl(reach[j], 1, tmp, w);
+
+            if (j == 0)
+                tmp[0] |= 1L;
+
+            for (int i=0; i<w; i++)
+                starts[j][i] &= tmp[i];
+
+            shl(starts[j], len, tmp, w);
+            fill(ce, tmp, reach[j+1], w);
+        }
+    }
+
+    /**
+     * Multi-word fill (see the single word fill), with the carry rippling between words
+     */
+    private static void fill(long[] m, long[] t, long[] dst, int w) {
+        long carry = 0;
+
+        for (int i=0; i<w; i++) {
+            long seed = t[i] & m[i];
+            long sum  = m[i] + seed;
+            long out  = (Long.compareUnsigned(sum, m[i]) < 0) ? 1 : 0;
+
+            sum  += carry;
+            out  |= ((carry != 0) && (sum == 0)) ? 1 : 0;
+            carry = out;
+
+            dst[i] = (m[i] & ~sum) | seed;
+        }
+    }
+
+    /**
+     * Multi-word runs (see the single word runs)
+     */
+    private static void runs(long[] m, int len, long[] dst, long[] scratch, int w) {
+        System.arraycopy(m, 0, dst, 0, w);
+
+        for (int got=1; got<len; ) {
+            int step = Math.min(got, len-got);
+
+            shr(dst, step, scratch, w);
+
+            for (int i=0; i<w; i++)
+                dst[i] &= scratch[i];
+
+            got += step;
+        }
+    }
+
+    /**
+     * Multi-word spread, in place (see the single word spread)
+     */
+    private void spread(long[] starts, int len, long[] scratch, int w) {
+        for (int got=1; got<len; ) {
+            int step = Math.min(got, len-got);
+
+            shl(starts, step, scratch, w);
+
+            for (int i=0; i<w; i++)
+                starts[i] |= scratch[i];
+
+            got += step;
+        }
+    }
+
+    /**
+     * Shift a multi-word mask towards higher cells, dropping bits beyond the line
+     */
+    private void shl(long[] src, int s, long[] dst, int w) {
+        int ws = s >>> 6;
+        int bs = s & 63;
+
+        for (int i=w-1; i>=0; i--) {
+            int  from = i - ws;
+            long v    = (from >= 0) ? (src[from] << bs) : 0;
+
+            if ((bs != 0) && (from-1 >= 0))
+                v |= src[from-1] >>> (64-bs);
+
+            dst[i] = v;
+        }
+
+        dst[w-1] &= top;
+    }
+
+    /**
+     * Shift a multi-word mask towards lower cells
+     */
+    private static void shr(long[] src, int s, long[] dst, int w) {
+        int ws = s >>> 6;
+        int bs = s & 63;
+
+        for (int i=0; i<w; i++) {
+            int  from = i + ws;
+            long v    = (from < w) ? (src[from] >>> bs) : 0;
+
+            if ((bs != 0) && (from+1 < w))
+                v |= src[from+1] << (64-bs);
+
+            dst[i] = v;
+        }
+    }
+
+    /**
+     * Reverse the order of the low n bits of a multi-word mask (dst must not be src)
+     */
+    private static void reverse(long[] src, int n, long[] dst, int w) {
+        for (int i=0; i<w; i++)
+            dst[i] = Long.reverse(src[w-1-i]);
+
+        shr(dst, (w << 6) - n, dst, w);
+    }
+
+    /**
+     * Grow the multi-word scratch buffers (if necessary) for k blocks of w words
+     */
+    private void ensureCapacity(int k, int w) {
+        if ((starts.length < k) || (cf.length < w)) {
+            int kk = Math.max(k, starts.length);
+            int ww = Math.max(w, cf.length);
+
+            starts    = new long[kk][ww];
+            reach     = new long[kk+1][ww];
+            revStarts = new long[kk][ww];
+            revReach  = new long[kk+1][ww];
+            cf        = new long[ww];
+            ce        = new long[ww];
+            revCf     = new long[ww];
+            revCe     = new long[ww];
+            canFull   = new long[ww];
+            canEmpty  = new long[ww];
+            tmp       = new long[ww];
+            tmp2      = new long[ww];
+        }
+    }
+
+    // single word scratch
+    private long[]   wordStarts    = new long[0];
+    private long[]   wordReach     = new long[0];
+    private long[]   wordRevStarts = new long[0];
+    private long[]   wordRevReach  = new long[0];
+
+    // multi-word scratch
+    private long[][] starts    = new long[0][];
+    private long[][] reach     = new long[0][];
+    private long[][] revStarts = new long[0][];
+    private long[][] revReach  = new long[0][];
+    private long[]   cf        = new long[0];
+    private long[]   ce        = new long[0];
+    private long[]   revCf     = new long[0];
+    private long[]   revCe     = new long[0];
+    private long[]   canFull   = new long[0];
+    private long[]   canEmpty  = new long[0];
+    private long[]   tmp       = new long[0];
+    private long[]   tmp2      = new long[0];
+    private long     top       = -1L; // mask of the valid bits in the last word
+}
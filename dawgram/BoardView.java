@@ -0,0 +1,843 @@
+/**
+* A Swing component that paints a Dawgram puzzle board (the clues and the cells) straight from the
+* model, for any grid size.
+*
+* The column clues are stacked above the grid and the row clues to its left, one number per
+* square, coloured by the state of the line (green solved, red invalid).  Cells are white when
+* UNKNOWN, dark when FULL and crossed when EMPTY; the cells to blame for an invalid line are
+* outlined in red.  With a heatmap set, UNKNOWN cells are shaded by their probability of being
+* FULL.  One line's clues may be highlighted as the active line.
+*
+* The board starts out fitted to the component.  The mouse wheel zooms (about the mouse) and
+* dragging pans; the clue headers stay pinned to the top and left edges, scrolling only along
+* with the grid.  Only what is visible is painted: the cells come from a cache of tiles (images
+* of TILE_CELLS x TILE_CELLS cells, least recently used dropped first), and a tile is only
+* repainted when a cell in it changes, so the cost of a paint depends on the visible area and not
+* on the size of the puzzle.
+*
+* Repaints are driven by the puzzle's change notifications, which may come from any thread and at
+* any rate: the changes are gathered up and, once per frame, only the changed cells and the clues
+* of lines whose state has changed are repainted.
+*
+* Clicks are hit-tested to a cell and passed to the cell listener.
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Observable;
+import java.util.Observer;
+
+import javax.swing.JComponent;
+import javax.swing.Timer;
+
+
+@SuppressWarnings({"deprecation", "serial"})
+public class BoardView extends JComponent implements Observer {
+    /**
+     * Something to be told when a cell is clicked
+     */
+    public interface CellListener {
+        /**
+         * A cell has been clicked
+         *
+         * @param row the cell row
+         * @param col the cell column
+         * @param e the mouse event (e.g. to tell the buttons apart)
+         */
+        void cellClicked(int row, int col, MouseEvent e);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param puzzle the dawgram puzzle to show (the view observes it, repainting on changes)
+     */
+    public BoardView(Dawgram puzzle) {
+        if (puzzle == null)
+            throw new IllegalArgumentException("puzzle cannot be null");
+
+        this.puzzle  = puzzle;
+        this.numRows = puzzle.getNumRows();
+        this.numCols = puzzle.getNumCols();
+        this.rowNums = new int[numRows][];
+        this.colNums = new int[numCols][];
+
+        for (int row=0; row<numRows; row++) {
+            rowNums[row]  = puzzle.getRowNums(row);
+            maxRowNumsLen = Math.max(maxRowNumsLen, rowNums[row].length);
+        }
+
+        for (int col=0; col<numCols; col++) {
+            colNums[col]  = puzzle.getColNums(col);
+            maxColNumsLen = Math.max(maxColNumsLen, colNums[col].length);
+        }
+
+        lineStatus = new int[numRows+numCols];
+        invalidateAll();
+
+        setOpaque(true);
+        setBackground(Color.BLACK);
+        setPreferredSize(new Dimension((maxRowNumsLen+numCols)*PREFERRED_SQUARE, (maxColNumsLen+numRows)*PREFERRED_SQUARE));
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int[] cell = cellAt(e.getX(), e.getY());
+
+                if ((cell != null) && (cellListener != null))
+                    cellListener.cellClicked(cell[0], cell[1], e);
+            }
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragX = e.getX();
+                dragY = e.getY();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                panBy(dragX - e.getX(), dragY - e.getY());
+                dragX = e.getX();
+                dragY = e.getY();
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                double factor = Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation());
+
+                zoom(factor, e.getX(), e.getY());
+            }
+        };
+
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+
+        frameTimer = new Timer(FRAME_MILLIS, e -> flush());
+        frameTimer.setRepeats(false);
+
+        pendingCells = new BitSet(numRows*numCols);
+        pendingLines = new BitSet(numRows+numCols);
+
+        puzzle.addObserver(this);
+    }
+
+    /**
+     * Set the listener told about cell clicks
+     *
+     * @param cellListener the listener (or null for none)
+     */
+    public void setCellListener(CellListener cellListener) {
+        this.cellListener = cellListener;
+    }
+
+    /**
+     * Set (or clear) the heatmap shading the UNKNOWN cells; the caller keeps it up to date
+     *
+     * @param heatmap the heatmap (or null for no shading)
+     */
+    public void setHeatmap(Heatmap heatmap) {
+        this.heatmap = heatmap;
+        clearTiles();
+        repaint();
+    }
+
+    /**
+     * Highlight the clues of one line (e.g. the line a solver is working on)
+     *
+     * @param line the line index, rows then columns (or -1 for none)
+     */
+    public void setActiveLine(int line) {
+        if ((line < -1) || (line >= numRows+numCols))
+            throw new IllegalArgumentException("line invalid, must be -1 <= line < " + (numRows+numCols));
+
+        if (line == activeLine)
+            return;
+
+        repaintClues(activeLine);
+        activeLine = line;
+        repaintClues(activeLine);
+    }
+
+    /**
+     * Repaint the clues of a line
+     *
+     * @param line the line index (or -1 for none)
+     */
+    private void repaintClues(int line) {
+        int square = getSquareSize();
+
+        if (line < 0)
+            return;
+        else if (line < numRows)
+            repaint(0, cellY(line, square), originX(square), square);
+        else
+            repaint(cellX(line-numRows, square), 0, square, originY(square));
+    }
+
+    /**
+     * Retrieve the size of a square (a cell or a clue number)
+     *
+     * @return the square size in pixels
+     */
+    public int getSquareSize() {
+        return (zoomSquare > 0) ? zoomSquare : fitSquare();
+    }
+
+    /**
+     * Zoom to a given square size, keeping the cell under a point where it is
+     *
+     * @param square the square size in pixels (clamped to MIN_SQUARE..MAX_SQUARE)
+     * @param x the x coordinate of the point to zoom about
+     * @param y the y coordinate of the point to zoom about
+     */
+    public void setSquareSize(int square, int x, int y) {
+        int old = getSquareSize();
+
+        square = Math.max(MIN_SQUARE, Math.min(MAX_SQUARE, square));
+
+        if (square == old)
+            return;
+
+        // the grid pixel under the point, scaled to the new size, stays under the point
+        long gridX = viewX + x - originX(old);
+        long gridY = viewY + y - originY(old);
+
+        zoomSquare = square;
+        viewX      = (int) (gridX*square/old) - (x - originX(square));
+        viewY      = (int) (gridY*square/old) - (y - originY(square));
+
+        clampView();
+        clearTiles();
+        repaint();
+    }
+
+    /**
+     * Zoom in or out about a point
+     *
+     * @param factor how much larger to make the squares (below 1 zooms out)
+     * @param x the x coordinate of the point to zoom about
+     * @param y the y coordinate of the point to zoom about
+     */
+    public void zoom(double factor, int x, int y) {
+        int old    = getSquareSize();
+        int square = (int) Math.round(old*factor);
+
+        if (square == old)
+            square += (factor > 1.0) ? 1 : -1; // small squares still change
+
+        setSquareSize(square, x, y);
+    }
+
+    /**
+     * Go back to fitting the whole board in the component
+     */
+    public void fit() {
+        zoomSquare = 0;
+        viewX      = 0;
+        viewY      = 0;
+
+        clearTiles();
+        repaint();
+    }
+
+    /**
+     * Scroll the grid (the clue headers follow along their own edge)
+     *
+     * @param dx pixels to scroll right
+     * @param dy pixels to scroll down
+     */
+    public void panBy(int dx, int dy) {
+        int oldX = viewX;
+        int oldY = viewY;
+
+        viewX += dx;
+        viewY += dy;
+
+        clampView();
+
+        if ((viewX != oldX) || (viewY != oldY))
+            repaint();
+    }
+
+    /**
+     * Hit-test a point to a cell
+     *
+     * @param x the x coordinate within the component
+     * @param y the y coordinate within the component
+     * @return {row, col}, or null if the point is not on a cell
+     */
+    public int[] cellAt(int x, int y) {
+        int square = getSquareSize();
+        int gridX  = originX(square);
+        int gridY  = originY(square);
+
+        if ((square <= 0) || (x < gridX) || (y < gridY))
+            return null;
+
+        int row = (y - gridY + viewY) / square;
+        int col = (x - gridX + viewX) / square;
+
+        if ((row >= numRows) || (col >= numCols))
+            return null;
+
+        return new int[] { row, col };
+    }
+
+    /**
+     * The puzzle has changed: note the cells and lines touched, and make sure a repaint is due
+     * within a frame.  Safe to call from any thread; however fast the changes come, they are
+     * coalesced into at most one repaint per frame.
+     *
+     * @param o the puzzle
+     * @param arg what changed (a Cell, a List of Assign, or anything else for everything)
+     */
+    @Override
+    public void update(Observable o, Object arg) {
+        boolean schedule;
+
+        synchronized (pendingLock) {
+            if (arg instanceof Cell) {
+                Cell cell = (Cell) arg;
+
+                addPending(cell.getRow(), cell.getCol());
+            } else if (arg instanceof List) {
+                for (Object move : (List<?>) arg)
+                    if (move instanceof Assign)
+                        addPending(((Assign) move).getRow(), ((Assign) move).getCol());
+            } else {
+                pendingAll = true;
+            }
+
+            schedule     = !flushPending;
+            flushPending = true;
+        }
+
+        if (schedule)
+            frameTimer.start();
+    }
+
+    /**
+     * Note a changed cell (the caller holds pendingLock)
+     *
+     * @param row the cell row
+     * @param col the cell column
+     */
+    private void addPending(int row, int col) {
+        if (pendingAll)
+            return;
+
+        if (!pendingCells.get(row*numCols + col) && (++numPending > MAX_DIRTY_CELLS)) {
+            pendingAll = true; // too many to be worth tracking one by one
+
+            return;
+        }
+
+        pendingCells.set(row*numCols + col);
+        pendingLines.set(row);
+        pendingLines.set(numRows + col);
+    }
+
+    /**
+     * Repaint what has changed since the last frame (on the EDT, when the frame timer fires): the
+     * changed cells, the clues of lines whose state has changed, and the whole of any line that
+     * is, or was, invalid (as its conflict cells may have moved)
+     */
+    private void flush() {
+        BitSet  cells;
+        BitSet  lines;
+        boolean all;
+
+        synchronized (pendingLock) {
+            cells        = (BitSet) pendingCells.clone();
+            lines        = (BitSet) pendingLines.clone();
+            all          = pendingAll;
+            pendingAll   = false;
+            numPending   = 0;
+            flushPending = false;
+
+            pendingCells.clear();
+            pendingLines.clear();
+        }
+
+        if (all) {
+            invalidateAll();
+            clearTiles();
+            repaint();
+
+            return;
+        }
+
+        int square = getSquareSize();
+
+        if (square <= 0)
+            return;
+
+        List<Rectangle> dirty = new ArrayList<>();
+        BitSet          whole = new BitSet(numRows+numCols); // lines repainted end to end
+
+        for (int line=lines.nextSetBit(0); line>=0; line=lines.nextSetBit(line+1)) {
+            int old = lineStatus[line];
+
+            lineStatus[line] = STATUS_STALE;
+
+            int status = lineStatus(line);
+
+            if ((old == STATUS_INVALID) || (status == STATUS_INVALID)) {
+                whole.set(line);
+                dirty.add(line < numRows ? new Rectangle(0, cellY(line, square), getWidth(), square)
+                                         : new Rectangle(cellX(line-numRows, square), 0, square, getHeight()));
+            } else if (old != status) {
+                dirty.add(line < numRows ? new Rectangle(0, cellY(line, square), originX(square), square)
+                                         : new Rectangle(cellX(line-numRows, square), 0, square, originY(square)));
+            }
+        }
+
+        for (int i=cells.nextSetBit(0); i>=0; i=cells.nextSetBit(i+1)) {
+            int row = i / numCols;
+            int col = i % numCols;
+
+            dropTile(row / TILE_CELLS, col / TILE_CELLS);
+
+            if (!whole.get(row) && !whole.get(numRows+col))
+                dirty.add(new Rectangle(cellX(col, square), cellY(row, square), square, square));
+        }
+
+        Rectangle visible = new Rectangle(0, 0, getWidth(), getHeight());
+
+        dirty.removeIf(r -> !r.intersects(visible));
+
+        if (dirty.isEmpty())
+            return;
+
+        if (dirty.size() <= MAX_DIRTY_RECTS) {
+            // painted one by one, as repaint() would merge them into one box spanning them all
+            for (Rectangle r : dirty)
+                paintImmediately(r.intersection(visible));
+        } else {
+            Rectangle box = dirty.get(0);
+
+            for (Rectangle r : dirty)
+                box = box.union(r);
+
+            repaint(box.x, box.y, box.width, box.height);
+        }
+    }
+
+    /**
+     * Forget the state of every line (the next paint works them out afresh)
+     */
+    public void invalidateAll() {
+        for (int i=0; i<lineStatus.length; i++)
+            lineStatus[i] = STATUS_STALE;
+    }
+
+    /**
+     * Retrieve the state of a line, working it out if stale
+     *
+     * @param line the line index (rows then columns)
+     * @return STATUS_SOLVED, STATUS_INVALID or STATUS_OPEN
+     */
+    private int lineStatus(int line) {
+        if (lineStatus[line] == STATUS_STALE) {
+            boolean isRow = line < numRows;
+            int     idx   = isRow ? line : line-numRows;
+
+            if (isRow ? puzzle.isRowSolved(idx) : puzzle.isColSolved(idx))
+                lineStatus[line] = STATUS_SOLVED;
+            else if (!(isRow ? puzzle.isRowValid(idx) : puzzle.isColValid(idx)))
+                lineStatus[line] = STATUS_INVALID;
+            else
+                lineStatus[line] = STATUS_OPEN;
+        }
+
+        return lineStatus[line];
+    }
+
+    /**
+     * Paint the visible part of the board
+     *
+     * @param g the graphics context
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2     = (Graphics2D) g;
+        Rectangle  clip   = g.getClipBounds();
+        int        square = getSquareSize();
+
+        if (clip == null)
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+
+        g2.setColor(getBackground());
+        g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        if (square <= 0)
+            return;
+
+        if (square != tileSquare) {
+            clearTiles(); // e.g. resized to fit
+            tileSquare = square;
+        }
+
+        clampView();
+
+        int gridX = originX(square);
+        int gridY = originY(square);
+
+        // only the rows and columns that cross the clip (within the grid's part of the component)
+        int firstRow = Math.max(0, (Math.max(clip.y, gridY) - gridY + viewY) / square);
+        int lastRow  = Math.min(numRows-1, (clip.y + clip.height - gridY + viewY) / square);
+        int firstCol = Math.max(0, (Math.max(clip.x, gridX) - gridX + viewX) / square);
+        int lastCol  = Math.min(numCols-1, (clip.x + clip.width - gridX + viewX) / square);
+        boolean text = square >= MIN_TEXT_SQUARE;
+
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setFont(new Font("Tahoma", Font.BOLD, Math.max(1, square*3/5)));
+
+        FontMetrics fm = g2.getFontMetrics();
+
+        // column clues, bottom aligned above the grid, pinned to the top edge
+        if (clip.y < gridY) {
+            Graphics2D header = (Graphics2D) g2.create();
+
+            header.clipRect(gridX, 0, getWidth() - gridX, gridY);
+
+            for (int col=firstCol; col<=lastCol; col++) {
+                int x = cellX(col, square);
+
+                header.setColor((numRows+col == activeLine) ? ACTIVE_COLOR : clueColor(lineStatus(numRows+col)));
+                header.fillRect(x, 0, square-1, gridY-1);
+
+                if (text) {
+                    header.setColor(Color.BLACK);
+
+                    for (int i=0; i<colNums[col].length; i++) {
+                        int y = gridY - (colNums[col].length-i)*square;
+
+                        drawCentred(header, fm, String.valueOf(colNums[col][i]), x, y, square);
+                    }
+                }
+            }
+
+            header.dispose();
+        }
+
+        // row clues, right aligned left of the grid, pinned to the left edge
+        if (clip.x < gridX) {
+            Graphics2D header = (Graphics2D) g2.create();
+
+            header.clipRect(0, gridY, gridX, getHeight() - gridY);
+
+            for (int row=firstRow; row<=lastRow; row++) {
+                int y = cellY(row, square);
+
+                header.setColor((row == activeLine) ? ACTIVE_COLOR : clueColor(lineStatus(row)));
+                header.fillRect(0, y, gridX-1, square-1);
+
+                if (text) {
+                    header.setColor(Color.BLACK);
+
+                    for (int i=0; i<rowNums[row].length; i++) {
+                        int x = gridX - (rowNums[row].length-i)*square;
+
+                        drawCentred(header, fm, String.valueOf(rowNums[row][i]), x, y, square);
+                    }
+                }
+            }
+
+            header.dispose();
+        }
+
+        if ((firstRow > lastRow) || (firstCol > lastCol))
+            return;
+
+        Graphics2D grid = (Graphics2D) g2.create();
+
+        grid.clipRect(gridX, gridY, getWidth() - gridX, getHeight() - gridY);
+
+        // the cells, a tile at a time
+        for (int tileRow=firstRow/TILE_CELLS; tileRow<=lastRow/TILE_CELLS; tileRow++)
+            for (int tileCol=firstCol/TILE_CELLS; tileCol<=lastCol/TILE_CELLS; tileCol++)
+                grid.drawImage(tile(tileRow, tileCol, square), cellX(tileCol*TILE_CELLS, square),
+                               cellY(tileRow*TILE_CELLS, square), null);
+
+        // the cells to blame for invalid lines
+        grid.setColor(CONFLICT_COLOR);
+        grid.setStroke(new BasicStroke(Math.max(1, square/8)));
+
+        for (int row=firstRow; row<=lastRow; row++)
+            if (lineStatus(row) == STATUS_INVALID)
+                for (int col : puzzle.getRowConflictCells(row))
+                    if ((col >= firstCol) && (col <= lastCol))
+                        grid.drawRect(cellX(col, square), cellY(row, square), square-2, square-2);
+
+        for (int col=firstCol; col<=lastCol; col++)
+            if (lineStatus(numRows+col) == STATUS_INVALID)
+                for (int row : puzzle.getColConflictCells(col))
+                    if ((row >= firstRow) && (row <= lastRow))
+                        grid.drawRect(cellX(col, square), cellY(row, square), square-2, square-2);
+
+        grid.dispose();
+    }
+
+    /**
+     * Retrieve the image of a tile of cells, from the cache or freshly painted
+     *
+     * @param tileRow the tile row
+     * @param tileCol the tile column
+     * @param square the square size in pixels
+     * @return the tile image
+     */
+    private BufferedImage tile(int tileRow, int tileCol, int square) {
+        long          key   = ((long) tileRow << 32) | tileCol;
+        BufferedImage image = tiles.get(key);
+
+        if (image != null)
+            return image;
+
+        int firstRow = tileRow*TILE_CELLS;
+        int firstCol = tileCol*TILE_CELLS;
+        int rows     = Math.min(TILE_CELLS, numRows - firstRow);
+        int cols     = Math.min(TILE_CELLS, numCols - firstCol);
+
+        image = new BufferedImage(cols*square, rows*square, BufferedImage.TYPE_INT_RGB);
+
+        Graphics2D g2 = image.createGraphics();
+
+        g2.setColor(getBackground());
+        g2.fillRect(0, 0, image.getWidth(), image.getHeight());
+
+        for (int r=0; r<rows; r++) {
+            for (int c=0; c<cols; c++) {
+                int x     = c*square;
+                int y     = r*square;
+                int state = puzzle.getState(firstRow+r, firstCol+c);
+
+                g2.setColor(cellColor(firstRow+r, firstCol+c, state));
+                g2.fillRect(x, y, Math.max(1, square-1), Math.max(1, square-1));
+
+                if ((state == Dawgram.EMPTY) && (square >= MIN_CROSS_SQUARE)) {
+                    int m = square/4;
+
+                    g2.setColor(CROSS_COLOR);
+                    g2.drawLine(x+m, y+m, x+square-1-m, y+square-1-m);
+                    g2.drawLine(x+square-1-m, y+m, x+m, y+square-1-m);
+                }
+            }
+        }
+
+        g2.dispose();
+
+        tiles.put(key, image);
+        tilePixels += (long) image.getWidth()*image.getHeight();
+
+        // drop the least recently used tiles (never the one just painted) to stay in budget
+        Iterator<Map.Entry<Long, BufferedImage>> it = tiles.entrySet().iterator();
+
+        while ((tilePixels > MAX_TILE_PIXELS) && (tiles.size() > 1)) {
+            BufferedImage old = it.next().getValue();
+
+            tilePixels -= (long) old.getWidth()*old.getHeight();
+            it.remove();
+        }
+
+        return image;
+    }
+
+    /**
+     * Drop a tile from the cache (one of its cells has changed)
+     *
+     * @param tileRow the tile row
+     * @param tileCol the tile column
+     */
+    private void dropTile(int tileRow, int tileCol) {
+        BufferedImage old = tiles.remove(((long) tileRow << 32) | tileCol);
+
+        if (old != null)
+            tilePixels -= (long) old.getWidth()*old.getHeight();
+    }
+
+    /**
+     * Drop every tile from the cache
+     */
+    private void clearTiles() {
+        tiles.clear();
+        tilePixels = 0;
+    }
+
+    /**
+     * Draw a string centred in a square
+     */
+    private static void drawCentred(Graphics2D g2, FontMetrics fm, String s, int x, int y, int square) {
+        g2.drawString(s, x + (square - fm.stringWidth(s))/2, y + (square + fm.getAscent() - fm.getDescent())/2);
+    }
+
+    /**
+     * Retrieve the colour of a cell
+     *
+     * @param row the cell row
+     * @param col the cell column
+     * @param state the cell state
+     * @return the colour
+     */
+    private Color cellColor(int row, int col, int state) {
+        if (state == Dawgram.FULL)
+            return FULL_COLOR;
+
+        if ((state == Dawgram.UNKNOWN) && (heatmap != null)) {
+            double p = heatmap.getProbability(row, col);
+
+            if (!Double.isNaN(p)) {
+                int shade = 255 - (int) Math.round(p*160);
+
+                return new Color(shade, shade, 255);
+            }
+        }
+
+        return CELL_COLOR;
+    }
+
+    /**
+     * Retrieve the colour of the clues of a line
+     *
+     * @param status the state of the line
+     * @return the colour
+     */
+    private static Color clueColor(int status) {
+        if (status == STATUS_SOLVED)
+            return SOLVED_COLOR;
+        else if (status == STATUS_INVALID)
+            return INVALID_COLOR;
+        else
+            return CLUE_COLOR;
+    }
+
+    /**
+     * Retrieve the size of a square that fits the whole board in the component
+     *
+     * @return the square size in pixels
+     */
+    private int fitSquare() {
+        return Math.max(MIN_SQUARE, Math.min(getWidth() / (maxRowNumsLen+numCols), getHeight() / (maxColNumsLen+numRows)));
+    }
+
+    /**
+     * Keep the view on the grid: no scrolling past its far edges, or at all along an edge it fits
+     */
+    private void clampView() {
+        int square = getSquareSize();
+
+        viewX = Math.max(0, Math.min(viewX, numCols*square - (getWidth() - originX(square))));
+        viewY = Math.max(0, Math.min(viewY, numRows*square - (getHeight() - originY(square))));
+    }
+
+    /**
+     * Retrieve the x coordinate of the left of the grid (right of the row clues)
+     */
+    private int originX(int square) {
+        return maxRowNumsLen*square;
+    }
+
+    /**
+     * Retrieve the y coordinate of the top of the grid (below the column clues)
+     */
+    private int originY(int square) {
+        return maxColNumsLen*square;
+    }
+
+    /**
+     * Retrieve the x coordinate of the left of a column, as scrolled
+     */
+    private int cellX(int col, int square) {
+        return originX(square) + col*square - viewX;
+    }
+
+    /**
+     * Retrieve the y coordinate of the top of a row, as scrolled
+     */
+    private int cellY(int row, int square) {
+        return originY(square) + row*square - viewY;
+    }
+
+    private static final int    PREFERRED_SQUARE = 24;   // pixels
+    private static final int    MIN_SQUARE       = 1;
+    private static final int    MAX_SQUARE       = 64;
+    private static final int    MIN_TEXT_SQUARE  = 8;    // smaller squares have no clue numbers
+    private static final int    MIN_CROSS_SQUARE = 6;    // smaller squares have no EMPTY crosses
+    private static final double ZOOM_STEP        = 1.25; // per mouse wheel notch
+
+    private static final int  TILE_CELLS      = 32;        // a tile is TILE_CELLS x TILE_CELLS cells
+    private static final long MAX_TILE_PIXELS = 16L << 20; // cached tile pixels (4 bytes each)
+
+    private static final int FRAME_MILLIS    = 16;   // changes are repainted at most this often
+    private static final int MAX_DIRTY_CELLS = 4096; // more changed cells in a frame repaint everything
+    private static final int MAX_DIRTY_RECTS = 64;   // more dirty areas are repainted as one box
+
+    private static final int STATUS_STALE   = 0;
+    private static final int STATUS_OPEN    = 1;
+    private static final int STATUS_SOLVED  = 2;
+    private static final int STATUS_INVALID = 3;
+
+    private static final Color CELL_COLOR     = Color.WHITE;
+    private static final Color FULL_COLOR     = new Color(20, 20, 120);
+    private static final Color CROSS_COLOR    = new Color(0, 0, 255);
+    private static final Color CLUE_COLOR     = new Color(33, 222, 222);
+    private static final Color SOLVED_COLOR   = new Color(60, 200, 60);
+    private static final Color INVALID_COLOR  = new Color(255, 80, 80);
+    private static final Color CONFLICT_COLOR = new Color(255, 0, 0);
+    private static final Color ACTIVE_COLOR   = new Color(255, 220, 0);
+
+    private Dawgram      puzzle        = null;
+    private int          numRows       = -1;
+    private int          numCols       = -1;
+    private int[][]      rowNums       = null;
+    private int[][]      colNums       = null;
+    private int          maxRowNumsLen = 0;
+    private int          maxColNumsLen = 0;
+    private int[]        lineStatus    = null;  // cached state of each line, rows then columns
+    private Heatmap      heatmap       = null;
+    private CellListener cellListener  = null;
+    private int          activeLine    = -1;    // the line whose clues are highlighted
+    private Timer        frameTimer    = null;  // fires flush() once per frame with changes
+
+    private int          zoomSquare    = 0;     // the square size zoomed to (0 to fit the component)
+    private int          viewX         = 0;     // grid pixels scrolled off the left
+    private int          viewY         = 0;     // grid pixels scrolled off the top
+    private int          dragX         = 0;     // the last mouse position while dragging
+    private int          dragY         = 0;
+
+    private Map<Long, BufferedImage> tiles      = new LinkedHashMap<>(16, 0.75f, true); // in LRU order
+    private long                     tilePixels = 0; // pixels in the cached tiles
+    private int                      tileSquare = 0; // the square size the tiles are painted at
+
+    private final Object pendingLock   = new Object(); // guards the pending fields
+    private BitSet       pendingCells  = null;  // cells changed since the last flush (row*numCols+col)
+    private BitSet       pendingLines  = null;  // lines changed since the last flush
+    private int          numPending    = 0;
+    private boolean      pendingAll    = false; // everything to be repainted
+    private boolean      flushPending  = false; // the frame timer is running
+}
@@ -1,5 +1,6 @@
 /**
-* A cell in a Dawgram puzzle.
+* A cell in a Dawgram puzzle.  The state itself is held in the puzzle's packed grid, so a cell is
+* a view of one position in it.
 * 
 * @author OTechCup
 * @credits ["Mr. O"]
@@ -12,7 +13,7 @@ package dawgram;
 
 public class Cell {
 	/**
-	 * Constructor, the state is set to UNKNOWN
+	 * Constructor, the state is that already held in the puzzle grid (initially UNKNOWN)
 	 * 
 	 * @param ng the dawgram puzzle this cell is part of
 	 * @param row the cell row in the grid
@@ -31,7 +32,6 @@ public class Cell {
 		this.ng    = ng;
 		this.row   = row;
 		this.col   = col;
-		this.state = Dawgram.UNKNOWN;
 	}
 	
 	/**
@@ -46,7 +46,7 @@ public class Cell {
 		this(ng, row, col);
 		if (!isValidState(state))
 			throw new IllegalArgumentException("invalid state (" + state + ")");
-		this.state = state;
+		ng.getGrid().set(row, col, state);
 	}
 	
   /**
@@ -73,9 +73,7 @@ public class Cell {
 	 * @return true if the cell state is FULL, otherwise false
 	 */
 	public boolean isFull() {
-		if (!checkState())
-			throw new DawgramException("invalid cell state (" + state + ")");
-		return state == Dawgram.FULL;
+		return getState() == Dawgram.FULL;
 	}
 	
 	/**
@@ -84,9 +82,7 @@ public class Cell {
 	 * @return true if the cell state is EMPTY, otherwise false
 	 */
 	public boolean isEmpty() {
-		if (!checkState())
-			throw new DawgramException("invalid cell state (" + state + ")");
-		return state == Dawgram.EMPTY;
+		return getState() == Dawgram.EMPTY;
 	}
 	
 	/**
@@ -95,9 +91,7 @@ public class Cell {
 	 * @return true if the cell state is UNKNOWN, otherwise false
 	 */
 	public boolean isUnknown() {
-		if (!checkState())
-			throw new DawgramException("invalid cell state (" + state + ")");
-		return state == Dawgram.UNKNOWN;
+		return getState() == Dawgram.UNKNOWN;
 	}
 	
 	/**
@@ -106,7 +100,8 @@ public class Cell {
 	 * @return the cell state (FULL, EMPY or UNKNOWN)
 	 */
 	public int getState() {
-		if (!checkState())
+		int state = ng.getGrid().get(row, col);
+		if (!isValidState(state))
 			throw new DawgramException("invalid cell state (" + state + ")");
 		return state;
 	}
@@ -115,21 +110,21 @@ public class Cell {
 	 * Set the cell state to FULL
 	 */
 	public void setFull() {
-		state = Dawgram.FULL;
+		ng.getGrid().set(row, col, Dawgram.FULL);
 	}
 	
 	/**
 	 * Set the cell state to EMPTY
 	 */
 	public void setEmpty() {
-		state = Dawgram.EMPTY;
+		ng.getGrid().set(row, col, Dawgram.EMPTY);
 	}
 	
 	/**
 	 * Set the cell state to UNKNOWN
 	 */
 	public void setUnknown() {
-		state = Dawgram.UNKNOWN;
+		ng.getGrid().set(row, col, Dawgram.UNKNOWN);
 	}
 	
 	/**
@@ -140,7 +135,7 @@ public class Cell {
 	void setState(int state) {
 		if (!isValidState(state))
 			throw new DawgramException("invalid state (" + state + ")");
-		this.state = state;
+		ng.getGrid().set(row, col, state);
 	}
 	
   /**
@@ -169,15 +164,6 @@ public class Cell {
 		return sb.toString();
 	}
 
-	/**
-	 * Check the cell state is valid (FULL, EMPY or UNKNOWN)
-	 * 
-	 * @return true if the state is valid, otherwise false
-	 */
-	private boolean checkState() {
-		return isValidState(state);
-	}
-	
 	/**
 	 * Check if an integer is a valid cell state (FULL, EMPY or UNKNOWN)
 	 * 
@@ -211,7 +197,6 @@ public class Cell {
 		return true;
 	}
 		
-	private int      state;
 	private int      row;
 	private int      col;
   private Dawgram ng = null;	
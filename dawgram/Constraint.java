@@ -9,6 +9,7 @@
 
 package dawgram;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 
@@ -40,12 +41,76 @@ public class Constraint {
 	}
 	
 	/**
-	 * Are the cells valid for this pattern?
+	 * Constructor for a constraint viewing a row or column of a packed grid directly
+	 * 
+	 * @param pat the pattern of contiguous full cells that the cells should match
+	 * @param grid the packed grid holding the cells
+	 * @param isRow a switch to indicate this is a row (true) or column (false)
+	 * @param idx the row or column number
+	 */
+	Constraint(NGPattern pat, PackedGrid grid, boolean isRow, int idx) {
+		if (pat == null)
+			throw new IllegalArgumentException("pat cannot be null");
+		
+		if (grid == null)
+			throw new IllegalArgumentException("grid cannot be null");
+		
+		int len = isRow ? grid.getNumCols() : grid.getNumRows();
+		int max = isRow ? grid.getNumRows() : grid.getNumCols();
+		
+		if ((idx < 0) || (idx >= max))
+			throw new IllegalArgumentException("idx invalid, must be 0 <= idx < " + max);
+		
+		if (pat.getMaxLen() != len)
+			throw new IllegalArgumentException("pat maxLen ("+pat.getMaxLen()+") must match length of line ("+len+")");
+		
+		this.pat   = pat;
+		this.grid  = grid;
+		this.isRow = isRow;
+		this.idx   = idx;
+	}
+	
+	/**
+	 * Are the cells valid for this pattern?  (Checked with the DPLineSolver's forward pass
+	 * rather than the validity regular expression, whose backtracking blows up on long lines.)
 	 * 
 	 * @return true if valid, otherwise false
 	 */
 	public boolean isValid() {
-		return pat.isValid(getSequence());
+		return new DPLineSolver().isFeasible(pat.getNums(), getLine());
+	}
+	
+	/**
+	 * Find a minimal window of cells whose known states alone contradict the pattern (not
+	 * necessarily the shortest; see DPLineSolver.conflict)
+	 * 
+	 * @return {from, to} (the window is cells from..to-1), or null if the cells are valid
+	 */
+	public int[] getConflict() {
+		return new DPLineSolver().conflict(pat.getNums(), getLine());
+	}
+	
+	/**
+	 * Find the cells to blame when the cells are invalid for this pattern: the known cells of the
+	 * minimal contradicting window found by getConflict()
+	 * 
+	 * @return the positions of the conflicting cells, in order (empty if the cells are valid)
+	 */
+	public int[] getConflictCells() {
+		byte[] line     = getLine();
+		int[]  conflict = new DPLineSolver().conflict(pat.getNums(), line);
+		
+		if (conflict == null)
+			return new int[0];
+		
+		int[] idxs = new int[conflict[1]-conflict[0]];
+		int   n    = 0;
+		
+		for (int i=conflict[0]; i<conflict[1]; i++)
+			if (line[i] != Dawgram.UNKNOWN)
+				idxs[n++] = i;
+		
+		return Arrays.copyOf(idxs, n);
 	}
 	
 	/**
@@ -99,13 +164,24 @@ public class Constraint {
 	 * @return the sequence of cell state values
 	 */
 	public String getSequence() {
-		// seq could be cached, but is this worthwhile?
-		StringBuffer sb = new StringBuffer();
+		String seq;
 		
-		for (Cell c : cells)
-			sb.append(c);
-		
-		String seq = sb.toString();
+		if (cells == null) {
+			byte[] line = getLine();
+			
+			for (int i=0; i<line.length; i++)
+				line[i] += '0';
+			
+			seq = new String(line, StandardCharsets.ISO_8859_1);
+		} else {
+			// seq could be cached, but is this worthwhile?
+			StringBuffer sb = new StringBuffer();
+			
+			for (Cell c : cells)
+				sb.append(c);
+			
+			seq = sb.toString();
+		}
 		
 		if (pat.getMaxLen() != seq.length())
 			throw new DawgramException("cells sequence length ("+seq.length()+") must match pat maxLen ("+pat.getMaxLen()+")");
@@ -125,10 +201,12 @@ public class Constraint {
 		if (seq.isEmpty())
 			throw new IllegalArgumentException("seq cannot be empty");
 		
-		if (seq.length() != cells.length)
-			throw new IllegalArgumentException("seq length ("+seq.length()+") must match length of cells array ("+cells.length+")");
+		if (seq.length() != pat.getMaxLen())
+			throw new IllegalArgumentException("seq length ("+seq.length()+") must match length of cells array ("+pat.getMaxLen()+")");
+		
+		byte[] line = new byte[seq.length()];
 		
-		for (int i=0; i<cells.length; i++) {
+		for (int i=0; i<line.length; i++) {
 			int state = Dawgram.UNKNOWN;
 		
 			try {
@@ -140,7 +218,53 @@ public class Constraint {
 			if (!Cell.isValidState(state))
 				throw new IllegalArgumentException("invalid state (" + state + ") in s["+ i +"]");
 			
-			cells[i].setState(state);
+			line[i] = (byte) state;
+		}
+		
+		setLine(line);
+	}
+	
+	/**
+	 * Retrieve the cell states as an array (the line view used by the line solvers)
+	 * 
+	 * @return the cell states, in order
+	 */
+	public byte[] getLine() {
+		byte[] line = new byte[pat.getMaxLen()];
+		
+		if (cells == null) {
+			if (isRow)
+				grid.getRow(idx, line);
+			else
+				grid.getCol(idx, line);
+		} else {
+			for (int i=0; i<cells.length; i++)
+				line[i] = (byte) cells[i].getState();
+		}
+		
+		return line;
+	}
+	
+	/**
+	 * Set the cell states from an array (the line view used by the line solvers)
+	 * 
+	 * @param line the cell states, in order
+	 */
+	public void setLine(byte[] line) {
+		if (line == null)
+			throw new IllegalArgumentException("line cannot be null");
+		
+		if (line.length != pat.getMaxLen())
+			throw new IllegalArgumentException("line length ("+line.length+") must match pat maxLen ("+pat.getMaxLen()+")");
+		
+		if (cells == null) {
+			if (isRow)
+				grid.setRow(idx, line);
+			else
+				grid.setCol(idx, line);
+		} else {
+			for (int i=0; i<cells.length; i++)
+				cells[i].setState(line[i]);
 		}
 	}
 	
@@ -170,6 +294,9 @@ public class Constraint {
 		return sb.toString();
 	}
 	
-	private NGPattern pat   = null;
-	private Cell[]    cells = null;
+	private NGPattern  pat   = null;
+	private Cell[]     cells = null;  // the cells (or null when viewing a grid line)
+	private PackedGrid grid  = null;  // the grid (or null when using cells)
+	private boolean    isRow = true;
+	private int        idx   = -1;    // the grid row or column
 }
@@ -0,0 +1,294 @@
+/**
+* A dynamic programming line solver for a Dawgram puzzle.
+*
+* For each prefix (and suffix) of the line it records which numbers of blocks can be placed there,
+* then a cell can be EMPTY if some split around it works and FULL if some block placement covering
+* it works.  This costs O(length * blocks) per line.
+*
+* Instances keep scratch buffers between calls and so are not thread safe: use one per thread.
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+
+public class DPLineSolver implements LineSolver {
+    /**
+     * Deduce as many cells of a line as possible from its pattern of contiguous full cells
+     *
+     * @param nums the pattern of contiguous full cells for the line
+     * @param line the cell states of the line (FULL, EMPTY or UNKNOWN), updated in place
+     * @return true if the line is consistent with the pattern, false on a contradiction
+     */
+    @Override
+    public boolean solve(int[] nums, byte[] line) {
+        if (!NGPattern.checkNums(nums))
+            throw new IllegalArgumentException("nums invalid");
+
+        if (line == null)
+            throw new IllegalArgumentException("line cannot be null");
+
+        if (!forward(nums, line))
+            return false;
+
+        int n = line.length;
+        int k = nums.length;
+        int w = n + 1;
+
+        // bwd[j*w+i]: cells [i,n) can hold exactly blocks j..k-1
+        int last = k*w;
+
+        bwd[last+n] = true;
+        for (int i=n-1; i>=0; i--)
+            bwd[last+i] = bwd[last+i+1] && (line[i] != Dawgram.FULL);
+
+        for (int j=k-1; j>=0; j--) {
+            int len  = nums[j];
+            int row  = j*w;
+            int next = (j+1)*w;
+
+            bwd[row+n] = false;
+
+            for (int i=n-1; i>=0; i--) {
+                boolean ok = (line[i] != Dawgram.FULL) && bwd[row+i+1]; // cell i empty
+
+                if (!ok && (i+len <= n) && (empties[i+len] == empties[i])) { // block j starts at i
+                    int e = i + len;
+
+                    if (j == k-1)
+                        ok = bwd[next+e];
+                    else
+                        ok = (e < n) && (line[e] != Dawgram.FULL) && bwd[next+e+1];
+                }
+
+                bwd[row+i] = ok;
+            }
+        }
+
+        // which cells can be covered by some valid block placement
+        for (int i=0; i<=n; i++)
+            cover[i] = 0;
+
+        for (int j=0; j<k; j++) {
+            int len = nums[j];
+
+            for (int s=0; s+len<=n; s++) {
+                if (empties[s+len] != empties[s])
+                    continue;
+
+                boolean left;
+                boolean right;
+
+                if (j == 0)
+                    left = fwd[s];
+                else
+                    left = (s >= 1) && (line[s-1] != Dawgram.FULL) && fwd[j*w+s-1];
+
+                if (!left)
+                    continue;
+
+                if (j == k-1)
+                    right = bwd[last+s+len];
+                else
+                    right = (s+len < n) && (line[s+len] != Dawgram.FULL) && bwd[(j+1)*w+s+len+1];
+
+                if (right) {
+                    cover[s]++;
+                    cover[s+len]--;
+                }
+            }
+        }
+
+        int covered = 0;
+
+        for (int c=0; c<n; c++) {
+            covered += cover[c];
+
+            if (line[c] != Dawgram.UNKNOWN)
+                continue;
+
+            boolean canFull  = covered > 0;
+            boolean canEmpty = false;
+
+            for (int j=0; (j<=k) && !canEmpty; j++)
+                canEmpty = fwd[j*w+c] && bwd[j*w+c+1];
+
+            if (canFull && !canEmpty)
+                line[c] = Dawgram.FULL;
+            else if (canEmpty && !canFull)
+                line[c] = Dawgram.EMPTY;
+            else if (!canFull && !canEmpty)
+                return false; // should never happen once fwd has succeeded
+        }
+
+        return true;
+    }
+
+    /**
+     * Can a line hold the pattern, given its known cells?  (Only the forward pass of solve(), so
+     * O(length * blocks), and nothing is deduced.)
+     *
+     * @param nums the pattern of contiguous full cells for the line
+     * @param line the cell states of the line (FULL, EMPTY or UNKNOWN), not changed
+     * @return true if the line is consistent with the pattern, otherwise false
+     */
+    public boolean isFeasible(int[] nums, byte[] line) {
+        if (!NGPattern.checkNums(nums))
+            throw new IllegalArgumentException("nums invalid");
+
+        if (line == null)
+            throw new IllegalArgumentException("line cannot be null");
+
+        return forward(nums, line);
+    }
+
+    /**
+     * Find a minimal run of cells whose known states alone contradict the pattern: the
+     * shortest contradicting prefix [0,to) is found first, then the latest start from for which
+     * [from,to) still contradicts.  Neither end can then be moved in without losing the
+     * contradiction, but a shorter window may exist elsewhere in the line.  Only known cells
+     * inside the window matter, so they are the cells to blame.  Each step is a binary search
+     * over the forward (prefix) pass of solve().
+     *
+     * @param nums the pattern of contiguous full cells for the line
+     * @param line the cell states of the line (FULL, EMPTY or UNKNOWN), not changed
+     * @return {from, to}, or null if the line is consistent with the pattern
+     */
+    public int[] conflict(int[] nums, byte[] line) {
+        if (!NGPattern.checkNums(nums))
+            throw new IllegalArgumentException("nums invalid");
+
+        if (line == null)
+            throw new IllegalArgumentException("line cannot be null");
+
+        if (forward(nums, line))
+            return null;
+
+        int n  = line.length;
+        int lo = 1;     // shortest prefix [0,lo) that might contradict
+        int hi = n;     // the whole line does
+
+        while (lo < hi) {
+            int mid = (lo+hi) >>> 1;
+
+            if (forward(nums, window(line, 0, mid)))
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+
+        int to = hi;
+
+        lo = 0;         // [lo,to) contradicts
+        hi = to - 1;    // a window of a single known cell is as short as any can be
+
+        while (lo < hi) {
+            int mid = (lo+hi+1) >>> 1;
+
+            if (forward(nums, window(line, mid, to)))
+                hi = mid - 1;
+            else
+                lo = mid;
+        }
+
+        return new int[] { lo, to };
+    }
+
+    /**
+     * Copy a line with every cell outside a window set to UNKNOWN
+     *
+     * @param line the cell states of the line
+     * @param from the first cell of the window
+     * @param to one past the last cell of the window
+     * @return the copy (a scratch buffer, valid until the next call)
+     */
+    private byte[] window(byte[] line, int from, int to) {
+        if ((masked == null) || (masked.length != line.length))
+            masked = new byte[line.length];
+
+        for (int i=0; i<line.length; i++)
+            masked[i] = ((i >= from) && (i < to)) ? line[i] : Dawgram.UNKNOWN;
+
+        return masked;
+    }
+
+    /**
+     * The forward (prefix) pass: fill in the EMPTY prefix counts and the prefix feasibility table
+     *
+     * @param nums the pattern of contiguous full cells for the line
+     * @param line the cell states of the line
+     * @return true if the whole line can hold the pattern, otherwise false
+     */
+    private boolean forward(int[] nums, byte[] line) {
+        int n = line.length;
+        int k = nums.length;
+        int w = n + 1;
+
+        ensureCapacity(n, k);
+
+        // prefix counts of EMPTY cells, so "no EMPTY cell in [a,b)" is a subtraction
+        empties[0] = 0;
+        for (int i=0; i<n; i++)
+            empties[i+1] = empties[i] + ((line[i] == Dawgram.EMPTY) ? 1 : 0);
+
+        // fwd[j*w+i]: cells [0,i) can hold exactly the first j blocks
+        fwd[0] = true;
+        for (int i=1; i<=n; i++)
+            fwd[i] = fwd[i-1] && (line[i-1] != Dawgram.FULL);
+
+        for (int j=1; j<=k; j++) {
+            int len  = nums[j-1];
+            int row  = j*w;
+            int prev = (j-1)*w;
+
+            fwd[row] = false;
+
+            for (int i=1; i<=n; i++) {
+                boolean ok = (line[i-1] != Dawgram.FULL) && fwd[row+i-1]; // cell i-1 empty
+
+                if (!ok && (i >= len) && (empties[i] == empties[i-len])) { // block j-1 ends at i
+                    int s = i - len;
+
+                    if (j == 1)
+                        ok = fwd[prev+s];
+                    else
+                        ok = (s >= 1) && (line[s-1] != Dawgram.FULL) && fwd[prev+s-1];
+                }
+
+                fwd[row+i] = ok;
+            }
+        }
+
+        return fwd[k*w+n];
+    }
+
+    /**
+     * Grow the scratch buffers (if necessary) for a line of n cells with k blocks
+     *
+     * @param n the line length
+     * @param k the number of blocks
+     */
+    private void ensureCapacity(int n, int k) {
+        int size = (k+1)*(n+1);
+
+        if (fwd.length < size) {
+            fwd = new boolean[size];
+            bwd = new boolean[size];
+        }
+
+        if (empties.length < n+1) {
+            empties = new int[n+1];
+            cover   = new int[n+1];
+        }
+    }
+
+    private boolean[] fwd     = new boolean[0]; // prefix feasibility table
+    private boolean[] bwd     = new boolean[0]; // suffix feasibility table
+    private int[]     empties = new int[0];     // prefix counts of EMPTY cells
+    private int[]     cover   = new int[0];     // difference array of block coverage
+    private byte[]    masked  = null;           // windowed copy of a line (for conflict)
+}
@@ -10,26 +10,43 @@
 package dawgram;
 
 import java.io.*;
+import java.time.Duration;
 import java.util.*;
+import java.util.function.BiFunction;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
 
 @SuppressWarnings("deprecation")
-public class Dawgram extends Observable {
+public class Dawgram extends Observable implements AutoCloseable {
     /**
-     * Constructor from a scanner (.non file format)
+     * Constructor from a scanner (.non file format), including the goal if given
      * see https://github.com/mikix/dawgram-db/blob/master/FORMAT.md
      * 
      * @param scnr the scanner
      */
     public Dawgram(Scanner scnr) {
+        this(scnr, PackedGrid::new);
+    }
+    
+    /**
+     * Constructor from a scanner (.non file format), with the cell states held in a grid from a
+     * given factory, e.g. PackedGrid::allocateDirect to keep a giant puzzle off the heap
+     * 
+     * @param scnr the scanner
+     * @param gridFactory creates the packed grid given the number of rows and columns
+     */
+    public Dawgram(Scanner scnr, BiFunction<Integer, Integer, PackedGrid> gridFactory) {
+        if (gridFactory == null)
+            throw new IllegalArgumentException("gridFactory cannot be null");
+        
         ArrayList<NGPattern> rowNGPatterns = new ArrayList<>();
         ArrayList<NGPattern> colNGPatterns = new ArrayList<>();
 
         boolean onRows = false;
         boolean onCols = false;
+        String  goalStr = null;
         
         while (scnr.hasNextLine()) {
             String line = scnr.nextLine();
@@ -56,6 +73,13 @@ public class Dawgram extends Observable {
                 
                 if (numRows < MIN_SIZE)
                     throw new DawgramException("height cannot be shorter than " + MIN_SIZE);
+            } else if (line.startsWith("goal")) {
+                int first = line.indexOf('"');
+                int last  = line.lastIndexOf('"');
+                
+                goalStr = (first < last) ? line.substring(first+1, last) : line.substring(4).trim();
+                onRows  = false;
+                onCols  = false;
             } else if (line.startsWith("rows")) {
                 onRows = true;
                 onCols = false;
@@ -77,6 +101,9 @@ public class Dawgram extends Observable {
                 if (!NGPattern.checkNums(nums))
                     throw new DawgramException("nums invalid");
                 
+                if (NGPattern.calcMinLen(nums) > numCols)
+                    throw new DawgramException("nums too long for the row (" + line + ")");
+                
                 NGPattern pat = new NGPattern(nums, numCols);
                 
                 rowNGPatterns.add(pat);
@@ -95,6 +122,9 @@ public class Dawgram extends Observable {
                 if (!NGPattern.checkNums(nums))
                     throw new DawgramException("nums invalid");
                 
+                if (NGPattern.calcMinLen(nums) > numRows)
+                    throw new DawgramException("nums too long for the column (" + line + ")");
+                
                 NGPattern pat = new NGPattern(nums, numRows);
                 
                 colNGPatterns.add(pat);
@@ -107,36 +137,38 @@ public class Dawgram extends Observable {
         if (colNGPatterns.size() != numCols)
             throw new DawgramException("incorrect number of cols ("+colNGPatterns.size()+")");
         
-        // create grid of cells
-        cells = new Cell[numRows][numCols];
+        // create the packed cell states
+        grid = gridFactory.apply(numRows, numCols);
+        
+        if ((grid == null) || (grid.getNumRows() != numRows) || (grid.getNumCols() != numCols))
+            throw new DawgramException("gridFactory must create a " + numRows + "x" + numCols + " grid");
 
         // Initialize undo stack
         undoStack = new Stack<>();
-
-        for (int row=0; row<numRows; row++) 
-            for (int col=0; col<numCols; col++) 
-                cells[row][col] = new Cell(this, row, col);
         
-        // create row constraints
-        rows            = new Constraint[numRows];
-        Cell[] rowCells = new Cell[numCols];
+        // create row and column constraints, viewing the lines of the grid
+        rows = new Constraint[numRows];
         
-        for (int row=0; row<numRows; row++) {
-            for (int col=0; col<numCols; col++)
-                rowCells[col] = cells[row][col];
-            
-            rows[row] = new Constraint(rowNGPatterns.get(row), rowCells);
-        }
+        for (int row=0; row<numRows; row++)
+            rows[row] = new Constraint(rowNGPatterns.get(row), grid, true, row);
         
-        // create column constraints
-        cols            = new Constraint[numCols];
-        Cell[] colCells = new Cell[numRows];
+        cols = new Constraint[numCols];
         
-        for (int col=0; col<numCols; col++) {
-            for (int row=0; row<numRows; row++)
-                colCells[row] = cells[row][col];
+        for (int col=0; col<numCols; col++)
+            cols[col] = new Constraint(colNGPatterns.get(col), grid, false, col);
         
-            cols[col] = new Constraint(colNGPatterns.get(col), colCells);
+        // the number of FULL cells in any solution
+        for (NGPattern pat : rowNGPatterns)
+            for (int num : pat.getNums())
+                numFullTarget += num;
+        
+        // the solution, if the file gives it
+        if (goalStr != null) {
+            try {
+                setGoal(goalStr);
+            } catch (IllegalArgumentException e) {
+                throw new DawgramException("goal invalid (" + e.getMessage() + ")");
+            }
         }
     }
 
@@ -172,11 +204,12 @@ public class Dawgram extends Observable {
         if ((col < 0)  || (col >= numCols))
             throw new IllegalArgumentException("col invalid, must be 0 <= col < " + numCols);
         
-        return cells[row][col].getState();
+        return grid.get(row, col);
     }
     
     /**
-     * Set the state of an individual cell, notifying observers
+     * Set the state of an individual cell, notifying observers.  In auto-fill mode, any cells the
+     * move forces are then filled in too (see setAutoFill).
      * 
      * @param row the cell row
      * @param col the cell column
@@ -197,11 +230,20 @@ public class Dawgram extends Observable {
 
         // Push the move onto the undo stack
         undoStack.push(move);
+        
+        if (goal != null)
+            mistakes += (isWrong(row, col, state) ? 1 : 0) - (isWrong(row, col, grid.get(row, col)) ? 1 : 0);
  
-        cells[row][col].setState(state);
+        grid.set(row, col, state);
+        changed(row, col);
         trace("notifyObservers: row: "+row+"; col : "+col+"; state: "+state);
         setChanged();
-        notifyObservers(cells[row][col]);
+        notifyObservers(new Cell(this, row, col));
+        
+        lastAutoFill = Collections.emptyList();
+        
+        if (autoFill && (state != UNKNOWN))
+            autoFill(row, col);
     }
     
     /**
@@ -215,7 +257,71 @@ public class Dawgram extends Observable {
             
         setState(move.getRow(), move.getCol(), move.getState());
     }
-    
+
+    /**
+     * Set the states of many cells as one batch of moves.  Each move is recorded for undo as if
+     * made by setState(), but observers are notified once, with the list of moves, and auto-fill
+     * is not applied.  The moves are all checked first, so a bad move sets none of them.
+     *
+     * @param moves the moves, in order
+     */
+    public void setStates(List<Assign> moves) {
+        if (moves == null)
+            throw new IllegalArgumentException("cannot have null moves");
+
+        for (Assign move : moves) {
+            if (move == null)
+                throw new IllegalArgumentException("cannot have null move");
+
+            if ((move.getRow() >= numRows) || (move.getCol() >= numCols))
+                throw new IllegalArgumentException("move (" + move.getRow() + ", " + move.getCol() + ") outside " + numRows + "x" + numCols);
+        }
+
+        lastAutoFill = Collections.emptyList();
+
+        applyStates(moves, true);
+    }
+
+    /**
+     * Set the states of many cells as setStates() does, but without recording the moves for undo,
+     * e.g. for a copy of a puzzle that only shows a solver's work and keeps its own journal
+     *
+     * @param moves the moves, in order (not checked)
+     */
+    void showStates(List<Assign> moves) {
+        applyStates(moves, false);
+    }
+
+    /**
+     * Set the states of many cells, notifying observers once
+     *
+     * @param moves the moves, in order
+     * @param journal record each move for undo?
+     */
+    private void applyStates(List<Assign> moves, boolean journal) {
+        if (moves.isEmpty())
+            return;
+
+        for (Assign move : moves) {
+            int row   = move.getRow();
+            int col   = move.getCol();
+            int state = move.getState();
+
+            if (journal)
+                undoStack.push(move);
+
+            if (goal != null)
+                mistakes += (isWrong(row, col, state) ? 1 : 0) - (isWrong(row, col, grid.get(row, col)) ? 1 : 0);
+
+            grid.set(row, col, state);
+            changed(row, col);
+        }
+
+        trace("notifyObservers: " + moves.size() + " cells set");
+        setChanged();
+        notifyObservers(Collections.unmodifiableList(new ArrayList<>(moves)));
+    }
+
     /**
      * Clear all the cells in the puzzle (set to UNKNOWN)
      */
@@ -229,7 +335,66 @@ public class Dawgram extends Observable {
     }
     
     /**
-    * Undo the last move made in the puzzle
+     * Retrieve the moves made (auto-filled ones included) that undo would take back, oldest first
+     *
+     * @return a copy of the moves
+     */
+    public List<Assign> getMoves() {
+        return new ArrayList<>(undoStack);
+    }
+
+    /**
+     * Retrieve the number of moves that undo would take back
+     *
+     * @return the number of moves
+     */
+    public int getNumMoves() {
+        return undoStack.size();
+    }
+
+    /**
+     * Resume a game from its cell states and moves (see getMoves), e.g. after writing them out,
+     * replacing the current ones.  Observers are told that everything changed.
+     *
+     * @param states the cell states, row by row
+     * @param moves the moves, oldest first
+     */
+    public void resume(byte[] states, List<Assign> moves) {
+        if ((states == null) || (states.length != numRows*numCols))
+            throw new IllegalArgumentException("states must be " + numRows + "x" + numCols);
+
+        if (moves == null)
+            throw new IllegalArgumentException("cannot have null moves");
+
+        for (byte state : states)
+            if (!Cell.isValidState(state))
+                throw new IllegalArgumentException("invalid state (" + state + ")");
+
+        byte[] line = new byte[numCols];
+
+        for (int row=0; row<numRows; row++) {
+            System.arraycopy(states, row*numCols, line, 0, numCols);
+            grid.setRow(row, line);
+        }
+
+        undoStack = new Stack<>();
+        undoStack.addAll(moves);
+        lastAutoFill = Collections.emptyList();
+
+        changedAll();
+    }
+
+    /**
+     * Is there a move to undo?
+     *
+     * @return true if undo() would undo a move, otherwise false
+     */
+    public boolean canUndo() {
+        return !undoStack.isEmpty();
+    }
+
+    /**
+    * Undo the last move made in the puzzle, together with any cells auto-filled after it
     */
     public void undo() {
           // Check if there are any moves to undo
@@ -238,20 +403,46 @@ public class Dawgram extends Observable {
 
           return;
         }
-       
-        // Create a record of the undo move by getting the most recent move
-        Assign undoMove = undoStack.lastElement();
         
-        // Update the state of the move to undo to UNKNOWN
-        cells[undoMove.getRow()][undoMove.getCol()].setState(UNKNOWN);
+        if (!undoStack.lastElement().isAuto()) {
+            Assign undoMove = undoStack.pop();
+            
+            undoCell(undoMove);
+            
+            // Notify observers
+            trace("notifyObservers: row: "+undoMove.getRow()+"; col : "+undoMove.getCol()+"; state: "+undoMove.getState());
+            setChanged();
+            notifyObservers(new Cell(this, undoMove.getRow(), undoMove.getCol()));
+            
+            return;
+        }
+        
+        // undo an auto-filled group and the move that forced it, as a single batch
+        List<Assign> undone = new ArrayList<>();
+        Assign       undoMove;
         
-        // Pop the most recent move from the undo stack
-        undoStack.pop();
+        do {
+            undoMove = undoStack.pop();
+            undoCell(undoMove);
+            undone.add(new Assign(undoMove.getRow(), undoMove.getCol(), UNKNOWN, undoMove.isAuto()));
+        } while (undoMove.isAuto() && !undoStack.isEmpty());
         
-        // Notify observers
-        trace("notifyObservers: row: "+undoMove.getRow()+"; col : "+undoMove.getCol()+"; state: "+undoMove.getState());
+        trace("notifyObservers: " + undone.size() + " cells undone");
         setChanged();
-        notifyObservers(cells[undoMove.getRow()][undoMove.getCol()]);
+        notifyObservers(Collections.unmodifiableList(undone));
+    }
+    
+    /**
+     * Set the cell of an undone move back to UNKNOWN (without notifying observers)
+     * 
+     * @param undoMove the move to undo
+     */
+    private void undoCell(Assign undoMove) {
+        if ((goal != null) && isWrong(undoMove.getRow(), undoMove.getCol(), grid.get(undoMove.getRow(), undoMove.getCol())))
+            mistakes--;
+        
+        grid.set(undoMove.getRow(), undoMove.getCol(), UNKNOWN);
+        changed(undoMove.getRow(), undoMove.getCol());
     }
     
     /**
@@ -282,6 +473,19 @@ public class Dawgram extends Observable {
      * Load the saved state of the puzzle
      */
     public void load() { 
+        Stack<Assign> state = readSave();
+        
+        if (state != null)
+            restore(state);
+    }
+    
+    /**
+     * Read the saved moves, without changing the puzzle (so it is safe to call off the thread
+     * the puzzle is played on, then hand the moves to restore() on that thread)
+     * 
+     * @return the saved moves, or null if there are none or they cannot be read
+     */
+    public static Stack<Assign> readSave() {
         try {
             // Read the JSON string from the file
             BufferedReader reader = new BufferedReader(new FileReader(SAVEFILE));
@@ -296,22 +500,40 @@ public class Dawgram extends Observable {
             // Convert the JSON string back to the game state object
             Stack<Assign> state = gson.fromJson(json, new TypeToken<Stack<Assign>>() {}.getType());
             
-            if (state.isEmpty()) {
-                    System.out.println("Error: saved game file is empty.");
-                } else {
-                    // update the undoStack and cells with the loaded states
-                    undoStack = state;
-                    
-                  for (Assign move : state) {
-                    cells[move.getRow()][move.getCol()].setState(move.getState());
-                  }
-                  
-                  System.out.println("Game loaded successfully.");
-                }
+            if ((state == null) || state.isEmpty()) {
+                System.out.println("Error: saved game file is empty.");
+                
+                return null;
+            }
+            
+            return state;
         } catch (IOException e) {
             System.out.println("Error loading saved game: " + e.getMessage());
+            
+            return null;
         }
     }
+    
+    /**
+     * Restore saved moves (see readSave), replacing the undo stack
+     * 
+     * @param state the saved moves
+     */
+    public void restore(Stack<Assign> state) {
+        if (state == null)
+            throw new IllegalArgumentException("state cannot be null");
+        
+        // update the undoStack and cells with the loaded states
+        undoStack = state;
+        
+        for (Assign move : state) {
+            grid.set(move.getRow(), move.getCol(), move.getState());
+        }
+        
+        changedAll();
+        
+        System.out.println("Game loaded successfully.");
+    }
 
     /**
      * Retrieve the pattern of contiguous full cells for a given row as an integer array
@@ -394,9 +616,506 @@ public class Dawgram extends Observable {
                 if (!Cell.isValidState(state))
                     throw new IllegalArgumentException("invalid state (" + state + ") in s["+ idx +"]");
                 
-                cells[row][col].setState(state);
+                grid.set(row, col, state);
             }
         }
+        
+        changedAll();
+    }
+    
+    /**
+     * Set the goal (the solution) from a single cell state string (as in a .non file), so every
+     * move can be checked against it
+     * 
+     * @param s the goal string, of FULL and EMPTY states only
+     */
+    public void setGoal(String s) {
+        if (s == null)
+            throw new IllegalArgumentException("s cannot be null");
+        
+        if (s.length() != numRows*numCols)
+            throw new IllegalArgumentException("s must be " + numRows*numCols + " chars long (" + s.length() + ")");
+        
+        PackedGrid g = new PackedGrid(numRows, numCols);
+        
+        for (int idx=0; idx<s.length(); idx++) {
+            char c = s.charAt(idx);
+            
+            if ((c != '0'+EMPTY) && (c != '0'+FULL))
+                throw new IllegalArgumentException("s contains non goal state (" + c + ") in s["+ idx +"]");
+            
+            g.set(idx/numCols, idx%numCols, c-'0');
+        }
+        
+        setGoal(g);
+    }
+    
+    /**
+     * Set the goal (the solution) from a grid, so every move can be checked against it
+     * 
+     * @param g the goal grid, of FULL and EMPTY states only (or null to clear the goal)
+     */
+    public void setGoal(PackedGrid g) {
+        if ((g != null) && ((g.getNumRows() != numRows) || (g.getNumCols() != numCols)))
+            throw new IllegalArgumentException("goal must be " + numRows + "x" + numCols);
+        
+        if ((g != null) && (g.count(UNKNOWN) != 0))
+            throw new IllegalArgumentException("goal cannot contain UNKNOWN cells");
+        
+        goal     = (g == null) ? null : g.copy();
+        mistakes = (goal == null) ? 0 : grid.countWrong(goal);
+    }
+    
+    /**
+     * Set the goal by solving the puzzle from its clues alone (by propagation)
+     * 
+     * @return true if a goal was found, otherwise false (the goal is then unchanged)
+     */
+    public boolean solveGoal() {
+        int[][] rowNums = new int[numRows][];
+        int[][] colNums = new int[numCols][];
+        
+        for (int row=0; row<numRows; row++)
+            rowNums[row] = rows[row].getNums();
+        
+        for (int col=0; col<numCols; col++)
+            colNums[col] = cols[col].getNums();
+        
+        // from the clues alone, leaving the cell states alone
+        Solver solver = new Solver(rowNums, colNums, BitLineSolver::new);
+        
+        solver.propagate();
+        
+        if (!solver.isSolved())
+            return false;
+        
+        setGoal(solver.getSolution());
+        
+        return true;
+    }
+    
+    /**
+     * Does the goal satisfy every row and column pattern?  A single pass over the goal lines, so a
+     * batch import can cheaply reject a file whose goal disagrees with its clues.
+     * 
+     * @return true if the goal is a solution, false if it is not (or there is no goal)
+     */
+    public boolean isGoalValid() {
+        if (goal == null)
+            return false;
+        
+        byte[] line = new byte[numCols];
+        
+        for (int row=0; row<numRows; row++) {
+            goal.getRow(row, line);
+            
+            if (!matchesNums(line, rows[row].getNums()))
+                return false;
+        }
+        
+        line = new byte[numRows];
+        
+        for (int col=0; col<numCols; col++) {
+            goal.getCol(col, line);
+            
+            if (!matchesNums(line, cols[col].getNums()))
+                return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Do the blocks of FULL cells in a line match a pattern exactly?
+     * 
+     * @param line the cell states of the line
+     * @param nums the pattern of contiguous full cells
+     * @return true if the line has exactly the blocks of nums, in order
+     */
+    private static boolean matchesNums(byte[] line, int[] nums) {
+        int block = 0;
+        int run   = 0;
+        
+        for (int i=0; i<=line.length; i++) {
+            if ((i < line.length) && (line[i] == FULL)) {
+                run++;
+            } else if (run > 0) {
+                if ((block >= nums.length) || (nums[block] != run))
+                    return false;
+                
+                block++;
+                run = 0;
+            }
+        }
+        
+        // an all empty line has the pattern {0}
+        return (block == nums.length) || ((block == 0) && (nums.length == 1) && (nums[0] == 0));
+    }
+    
+    /**
+     * Is the goal (the solution) known?
+     * 
+     * @return true if there is a goal, otherwise false
+     */
+    public boolean hasGoal() {
+        return goal != null;
+    }
+    
+    /**
+     * Retrieve the number of cells currently set to the wrong state (FULL or EMPTY, but not as in
+     * the goal); kept up to date on every move
+     * 
+     * @return the number of mistakes (always 0 if there is no goal)
+     */
+    public int getMistakes() {
+        return mistakes;
+    }
+    
+    /**
+     * Is an individual cell set to the wrong state?
+     * 
+     * @param row the cell row
+     * @param col the cell column
+     * @return true if the cell is FULL or EMPTY but not as in the goal (false if there is no goal)
+     */
+    public boolean isMistake(int row, int col) {
+        if ((row < 0)  || (row >= numRows))
+            throw new IllegalArgumentException("row invalid, must be 0 <= row < " + numRows);
+        
+        if ((col < 0)  || (col >= numCols))
+            throw new IllegalArgumentException("col invalid, must be 0 <= col < " + numCols);
+        
+        return (goal != null) && isWrong(row, col, grid.get(row, col));
+    }
+    
+    /**
+     * Would a cell state be wrong according to the goal? (the goal must be known)
+     * 
+     * @param row the cell row
+     * @param col the cell column
+     * @param state the cell state
+     * @return true if the state is FULL or EMPTY but not as in the goal
+     */
+    private boolean isWrong(int row, int col, int state) {
+        return (state != UNKNOWN) && (state != goal.get(row, col));
+    }
+    
+    /**
+     * Find the next logically forced cell: an UNKNOWN cell that must be FULL (or EMPTY) given
+     * the current states of the other cells in its row (or column).
+     * 
+     * Each line's deduction is cached until a cell in that line changes, so after a move only
+     * the moved cell's row and column are solved again.  The hint itself is cached until the
+     * next change.
+     * 
+     * If no cell is forced and setHeatmapHints has turned it on, the hint falls back on the
+     * UNKNOWN cell the heatmap is surest of, which is likely rather than forced.  That samples
+     * solutions, which can take far longer than a forced hint, so it is off by default: callers
+     * with time to spare (e.g. a background task) can use getHeatmap() themselves instead.
+     * 
+     * @return the hint, or null if there is none
+     */
+    public Hint hint() {
+        Hint forced = forcedHint();
+        
+        if ((forced != null) || !heatmapHints)
+            return forced;
+        
+        // nothing is forced, so fall back on the likeliest cell
+        getHeatmap().update();
+        
+        return heatmap.likeliest();
+    }
+    
+    /**
+     * Turn on (or off, the default) falling back on the heatmap for hints: when no single row or
+     * column forces a cell, hint() then suggests the cell the sampled solutions are surest of
+     * 
+     * @param on true to fall back on the heatmap, false for forced hints only
+     */
+    public void setHeatmapHints(boolean on) {
+        heatmapHints = on;
+    }
+    
+    /**
+     * Retrieve the heatmap of the puzzle (created on first use; call its update() after moves)
+     * 
+     * @return the heatmap
+     */
+    public Heatmap getHeatmap() {
+        if (heatmap == null)
+            heatmap = new Heatmap(this);
+        
+        return heatmap;
+    }
+    
+    /**
+     * Find the next logically forced cell (see hint())
+     * 
+     * @return the hint, or null if no single row or column forces a cell
+     */
+    private Hint forcedHint() {
+        if (hintValid)
+            return hint;
+        
+        initLineSolver();
+        
+        hint = null;
+        
+        for (int line=0; (line<numRows+numCols) && (hint == null); line++) {
+            if (!lineChecked[line]) {
+                lineHints[line]   = lineHint(line);
+                lineChecked[line] = true;
+            }
+            
+            hint = lineHints[line];
+        }
+        
+        hintValid = true;
+        
+        return hint;
+    }
+    
+    /**
+     * Estimate the heap held by the puzzle's caches, on top of its patterns, cells and moves: the
+     * hint state of each line and the line solver's scratch (once hints or auto-fill have been
+     * used), and the heatmap's samples and counts (once the heatmap has been made)
+     * 
+     * @return the estimate in bytes
+     */
+    long estimateCacheBytes() {
+        long bytes = 0;
+        
+        if (hintSolver != null) {
+            int maxClues = 0;
+            
+            // per line: its copied pattern, cached hint and checked flag
+            for (int[] nums : lineNums) {
+                bytes   += ARRAY_BYTES + 4L*nums.length + HINT_BYTES;
+                maxClues = Math.max(maxClues, nums.length);
+            }
+            
+            // the line solver's scratch: a few words per clue, per 64 cells of the longest line
+            bytes += 8L * ((Math.max(numRows, numCols)+63)/64) * (4L*maxClues + 10);
+        }
+        
+        if (heatmap != null) {
+            long cells = (long) numRows*numCols;
+            
+            bytes += 4*cells + heatmap.getNumSamples()*(cells + SAMPLE_BYTES);
+        }
+        
+        return bytes;
+    }
+    
+    /**
+     * Create the line solver (and its per line state) used by hints and auto-fill, if not yet done
+     */
+    private void initLineSolver() {
+        if (hintSolver != null)
+            return;
+        
+        lineNums    = new int[numRows+numCols][];
+        lineHints   = new Hint[numRows+numCols];
+        lineChecked = new boolean[numRows+numCols];
+        hintSolver  = new BitLineSolver();
+        
+        for (int row=0; row<numRows; row++)
+            lineNums[row] = rows[row].getNums();
+        
+        for (int col=0; col<numCols; col++)
+            lineNums[numRows+col] = cols[col].getNums();
+    }
+    
+    /**
+     * Turn auto-fill mode on or off.  In auto-fill mode every move (other than to UNKNOWN) is
+     * followed by propagation out from the moved cell's row and column: cells that are then forced
+     * are filled in, their rows and columns are solved in turn, and so on until nothing more is
+     * forced or the budget (see setAutoFillBudget) runs out.  The filled cells are reported to
+     * observers as one List of Assign, and are undone together with the move that forced them.
+     * 
+     * @param on true to turn auto-fill on, false to turn it off
+     */
+    public void setAutoFill(boolean on) {
+        autoFill = on;
+    }
+    
+    /**
+     * Is auto-fill mode on?
+     * 
+     * @return true if moves are followed by auto-fill, otherwise false
+     */
+    public boolean isAutoFill() {
+        return autoFill;
+    }
+    
+    /**
+     * Set how far auto-fill may go after a single move, so the player is never kept waiting
+     * 
+     * @param maxTime the longest auto-fill may run (checked after each line)
+     * @param maxCells the most cells auto-fill may fill in
+     */
+    public void setAutoFillBudget(Duration maxTime, int maxCells) {
+        if ((maxTime == null) || maxTime.isNegative())
+            throw new IllegalArgumentException("maxTime must be >= 0");
+        
+        if (maxCells < 0)
+            throw new IllegalArgumentException("maxCells must be >= 0 (" + maxCells + ")");
+        
+        autoFillTime  = maxTime;
+        autoFillCells = maxCells;
+    }
+    
+    /**
+     * Retrieve the longest auto-fill may run after a single move
+     * 
+     * @return the time budget
+     */
+    public Duration getAutoFillTime() {
+        return autoFillTime;
+    }
+    
+    /**
+     * Retrieve the most cells auto-fill may fill in after a single move
+     * 
+     * @return the cell budget
+     */
+    public int getAutoFillCells() {
+        return autoFillCells;
+    }
+    
+    /**
+     * Retrieve the cells auto-filled after the last move
+     * 
+     * @return the auto-filled cells (empty if none, or auto-fill is off)
+     */
+    public List<Assign> getLastAutoFill() {
+        return lastAutoFill;
+    }
+    
+    /**
+     * Fill in the cells forced by a move, propagating out from its row and column within the
+     * auto-fill budget.  Stops early (filling nothing more) if a line contradicts its pattern.
+     * 
+     * @param row the row of the move
+     * @param col the column of the move
+     */
+    private void autoFill(int row, int col) {
+        initLineSolver();
+        
+        long                deadline = System.nanoTime() + autoFillTime.toNanos();
+        List<Assign>        filled   = new ArrayList<>();
+        ArrayDeque<Integer> queue    = new ArrayDeque<>();   // lines to solve
+        boolean[]           queued   = new boolean[numRows+numCols];
+        
+        queue.add(row);
+        queue.add(numRows+col);
+        queued[row]         = true;
+        queued[numRows+col] = true;
+        
+        while (!queue.isEmpty() && (filled.size() < autoFillCells) && (System.nanoTime() < deadline)) {
+            int     line   = queue.poll();
+            boolean isRow  = line < numRows;
+            byte[]  before = isRow ? rows[line].getLine() : cols[line-numRows].getLine();
+            byte[]  after  = Arrays.copyOf(before, before.length);
+            
+            queued[line] = false;
+            
+            if (!hintSolver.solve(lineNums[line], after))
+                break;
+            
+            for (int i=0; (i<after.length) && (filled.size() < autoFillCells); i++) {
+                if (after[i] == before[i])
+                    continue;
+                
+                int r     = isRow ? line : i;
+                int c     = isRow ? i : line-numRows;
+                int cross = isRow ? numRows+i : i;
+                
+                Assign move = new Assign(r, c, after[i], true);
+                
+                undoStack.push(move);
+                
+                if ((goal != null) && isWrong(r, c, after[i]))
+                    mistakes++;
+                
+                grid.set(r, c, after[i]);
+                changed(r, c);
+                filled.add(move);
+                
+                if (!queued[cross]) {
+                    queue.add(cross);
+                    queued[cross] = true;
+                }
+            }
+        }
+        
+        lastAutoFill = Collections.unmodifiableList(filled);
+        
+        if (!filled.isEmpty()) {
+            trace("notifyObservers: " + filled.size() + " cells auto-filled");
+            setChanged();
+            notifyObservers(lastAutoFill);
+        }
+    }
+    
+    /**
+     * Run the line solver over one row or column to find its first forced cell
+     * 
+     * @param line the line index (rows then columns)
+     * @return the hint, or null if the line forces no cell (or contradicts its pattern)
+     */
+    private Hint lineHint(int line) {
+        boolean isRow  = line < numRows;
+        byte[]  before = isRow ? rows[line].getLine() : cols[line-numRows].getLine();
+        byte[]  after  = Arrays.copyOf(before, before.length);
+        
+        if (!hintSolver.solve(lineNums[line], after))
+            return null;
+        
+        for (int i=0; i<after.length; i++) {
+            if (after[i] != before[i]) {
+                if (isRow)
+                    return new Hint(line, i, after[i], true);
+                else
+                    return new Hint(i, line-numRows, after[i], false);
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Record that a cell has changed, invalidating anything cached from its row and column
+     * 
+     * @param row the cell row
+     * @param col the cell column
+     */
+    private void changed(int row, int col) {
+        if (lineChecked != null) {
+            lineChecked[row]         = false;
+            lineChecked[numRows+col] = false;
+        }
+        
+        hintValid = false;
+    }
+    
+    /**
+     * Record that any of the cells may have changed, invalidating everything cached, and tell the
+     * observers (with no argument, meaning everything)
+     */
+    private void changedAll() {
+        if (lineChecked != null)
+            Arrays.fill(lineChecked, false);
+        
+        if (goal != null)
+            mistakes = grid.countWrong(goal);
+        
+        hintValid = false;
+        
+        trace("notifyObservers: all cells");
+        setChanged();
+        notifyObservers();
     }
     
     /**
@@ -425,6 +1144,32 @@ public class Dawgram extends Observable {
         return cols[col].isValid();
     }
     
+    /**
+     * Find the cells to blame for a row being invalid
+     * 
+     * @param row the desired row
+     * @return the columns of the conflicting cells (empty if the row is valid)
+     */
+    public int[] getRowConflictCells(int row) {
+        if ((row < 0)  || (row >= numRows))
+            throw new IllegalArgumentException("row invalid, must be 0 <= row < " + numRows);
+        
+        return rows[row].getConflictCells();
+    }
+    
+    /**
+     * Find the cells to blame for a column being invalid
+     * 
+     * @param col the desired column
+     * @return the rows of the conflicting cells (empty if the column is valid)
+     */
+    public int[] getColConflictCells(int col) {
+        if ((col < 0)  || (col >= numCols))
+            throw new IllegalArgumentException("col invalid, must be 0 <= col < " + numCols);
+        
+        return cols[col].getConflictCells();
+    }
+    
     /**
      * Is a given row of cells solved? (Note that a row may be solved, but still incorrect depending on other columns.)
      * 
@@ -452,11 +1197,56 @@ public class Dawgram extends Observable {
     }
     
     /**
-     * Are all rows and columns, and therefore the whole puzzle, solved?
+     * Retrieve the number of cells currently UNKNOWN
+     * 
+     * @return the number of unknown cells
+     */
+    public int getNumUnknown() {
+        return grid.count(UNKNOWN);
+    }
+    
+    /**
+     * Retrieve the number of cells currently FULL
+     * 
+     * @return the number of full cells
+     */
+    public int getNumFull() {
+        return grid.count(FULL);
+    }
+    
+    /**
+     * Take a snapshot of the current cell states
+     * 
+     * @return a copy of the packed cell states
+     */
+    public PackedGrid snapshot() {
+        return grid.copy();
+    }
+    
+    /**
+     * Find the cells changed since a snapshot was taken
+     * 
+     * @param snapshot a snapshot of this puzzle
+     * @return the changed cells as row-major indices (row*numCols + col)
+     */
+    public int[] diff(PackedGrid snapshot) {
+        return grid.diff(snapshot);
+    }
+    
+    /**
+     * Are all rows and columns, and therefore the whole puzzle, solved?  If the goal is known this
+     * is just a word-wise comparison of the cells with the goal.
      * 
      * @return true if all rows and coplumns are solved, otherwise false
      */
     public boolean isSolved() {
+        if (goal != null)
+            return grid.countFullMismatch(goal) == 0;
+        
+        // a solution has exactly as many full cells as the row patterns add up to
+        if (grid.count(FULL) != numFullTarget)
+            return false;
+        
         for (int row=0; row<numRows; row++)
             if (!rows[row].isSolved())
                 return false;
@@ -487,14 +1277,42 @@ public class Dawgram extends Observable {
         sb.append("\n");
         sb.append("columns\n");
         
-        for (int col=0; col<numRows; col++)
+        for (int col=0; col<numCols; col++)
             sb.append(cols[col].getNumsForNon() + "\n");
         
         sb.append("\n");
         
+        if (goal != null) {
+            sb.append("goal \"");
+            
+            for (int row=0; row<numRows; row++)
+                for (int col=0; col<numCols; col++)
+                    sb.append(goal.get(row, col));
+            
+            sb.append("\"\n");
+        }
+        
         return sb.toString();
     }
     
+    /**
+     * Release the cell state storage (needed for off-heap or memory-mapped grids); the puzzle
+     * cannot be used afterwards
+     */
+    @Override
+    public void close() {
+        grid.close();
+    }
+    
+    /**
+     * Retrieve the packed cell states (shared with the cells, not a copy)
+     * 
+     * @return the packed grid
+     */
+    PackedGrid getGrid() {
+        return grid;
+    }
+    
     /**
      * A trace method for debugging (active when traceOn is true)
      * 
@@ -506,12 +1324,18 @@ public class Dawgram extends Observable {
     }
     
     public static final int MIN_SIZE = 5;
+    public static final Duration DEFAULT_AUTO_FILL_TIME = Duration.ofMillis(20);
     public static final int EMPTY   = 0;
     public static final int FULL    = 1;
     public static final int UNKNOWN = 2;
     private static  final String SAVEFILE = "save/state.json";
     
-    private Cell[][]     cells   = null;
+    // rough heap sizes, for estimateCacheBytes()
+    private static final long ARRAY_BYTES  = 16;  // an array's header
+    private static final long HINT_BYTES   = 48;  // a cached Hint, its reference and flag
+    private static final long SAMPLE_BYTES = 96;  // a sample's PackedGrid and buffer, bar the cells
+    
+    private PackedGrid   grid    = null; // the cell states, viewed by cells and constraints
 
     // A stack to store the previous moves made on the dawgram
     private Stack<Assign> undoStack = null;
@@ -520,6 +1344,29 @@ public class Dawgram extends Observable {
     private Constraint[] cols    = null;
     private int          numRows = -1;
     private int          numCols = -1;
+    private int          numFullTarget = 0; // number of full cells in a solution
+    
+    // the solution (if known) and the running count of cells that disagree with it
+    private PackedGrid   goal     = null;
+    private int          mistakes = 0;
+    
+    // hints, cached per line until a cell in the line changes
+    private LineSolver   hintSolver  = null;
+    private int[][]      lineNums    = null;  // patterns, rows then columns
+    private Hint[]       lineHints   = null;  // first forced cell of each checked line (or null)
+    private boolean[]    lineChecked = null;  // is lineHints up to date for each line?
+    private Hint         hint        = null;
+    private boolean      hintValid   = false;
+    
+    // estimated probabilities (created on first use) and whether hints fall back on them
+    private Heatmap      heatmap       = null;
+    private boolean      heatmapHints  = false;
+    
+    // auto-fill mode
+    private boolean      autoFill      = false;
+    private Duration     autoFillTime  = DEFAULT_AUTO_FILL_TIME;
+    private int          autoFillCells = Integer.MAX_VALUE;
+    private List<Assign> lastAutoFill  = Collections.emptyList();
     
     private static boolean traceOn = false; // for debugging
 }
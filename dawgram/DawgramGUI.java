@@ -1,6 +1,12 @@
 /**
 * A gui user interface to a Dawgram puzzle.
-* 
+*
+* Anything that may take a while (opening, generating, loading and saving puzzles, hints, the
+* heatmap and solving) runs as a background Task, off the Event Dispatch Thread, so the window
+* stays responsive.  One task runs at a time: its progress is shown in the message box, Cancel
+* stops it, and its result is applied back on the Event Dispatch Thread.  While a task runs the
+* board takes no moves, so the task has the puzzle to itself.
+*
 * @author OTechCup
 * @credits ["Mr. O"]
 * @version 0.1
@@ -14,7 +20,6 @@ import java.awt.Color;
 import java.awt.FlowLayout;
 import java.awt.BorderLayout;
 import java.awt.CardLayout;
-import java.awt.GridLayout;
 import java.awt.Font;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -22,1046 +27,669 @@ import java.awt.event.MouseEvent;
 import java.io.FileNotFoundException;
 import java.io.File;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import java.util.Stack;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.JButton;
+import javax.swing.JFileChooser;
 import javax.swing.JPanel;
 import javax.swing.JFrame;
-import javax.swing.border.LineBorder;
 import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 
 
 public class DawgramGUI extends JFrame {
-    
+
     /**
     * Main constructor
     */
     public DawgramGUI() {
-        DawgramPuzzle(); // initialize dawgram puzzle
+        this(NGFILE);
+    }
+
+
+    /**
+    * Constructor for a given puzzle file
+    *
+    * @param file the .non file to play
+    */
+    public DawgramGUI(String file) {
+        this(readPuzzle(new File(file)));
+    }
+
+
+    /**
+    * Constructor for a given puzzle (call on the Event Dispatch Thread)
+    *
+    * @param puzzle the dawgram puzzle to play
+    */
+    public DawgramGUI(Dawgram puzzle) {
+        if (puzzle == null)
+            throw new IllegalArgumentException("puzzle cannot be null");
+
+        this.puzzle = puzzle;
         GUIFrame(); // initialize the gui window
     }
-    
-    
+
+
     /**
     * Create a GUI window
     */
     private void GUIFrame() {
-        this.setVisible(true); 
-        this.setSize(420, 480); 
-        this.setTitle("Dawgram"); 
-        this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE); 
-        this.setResizable(false); 
-        this.getContentPane().setBackground(Color.BLACK); 
-        
+        this.setVisible(true);
+        this.setSize(640, 640);
+        this.setTitle("Dawgram");
+        this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        this.setResizable(true);
+        this.getContentPane().setBackground(Color.BLACK);
+
         GUIMenu(); // initialize gui menu
         DawgramBoard(); // initialize dawgram board
         DialogueBox(); // initialize dialogue box
-        
+
         messageBox.setText("Start the Game... \nClick on the white cells to make a play...");
     }
 
-    
+
     /**
     * Create a GUI menu
     */
     private void GUIMenu() {
         JPanel menuPanel = new JPanel();
         menuPanel.setBackground(Color.BLACK);
-        
-        FlowLayout flowLayout = (FlowLayout) menuPanel.getLayout(); 
-        flowLayout.setAlignment(FlowLayout.CENTER); 
-        flowLayout.setVgap(10); 
-        
-        this.getContentPane().add(menuPanel, BorderLayout.NORTH); 
-        
-        JButton saveButton = new JButton("Save");
-        menuPanel.add(saveButton);
-        saveButton.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                String msg = puzzle.save(); // Save the current state of the puzzle
-                
-                messageBox.setText(msg);
-            }
-        });
-            
-        JButton loadButton = new JButton("Load"); 
-        menuPanel.add(loadButton);
-        loadButton.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                
-            }
-        });
-            
-        JButton undoButton = new JButton("Undo"); 
-        menuPanel.add(undoButton);
-        undoButton.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                
-            }
-        });
-            
-        JButton restartButton = new JButton("Restart"); 
-        menuPanel.add(restartButton); 
-        restartButton.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                
-            }
-        });
-        
-        JButton helpButton = new JButton("Help"); 
-        menuPanel.add(helpButton); 
-        helpButton.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                messageBox.setText(
-                    "Dawgram is a puzzle where you must color in/fill in the grid according to the patterns of contiguous full cells given in the rows and columns. Full cells are shown as '" + FULL_CHAR + "', unknown cells as 'Blank Cell' and cells you are sure are empty as '" + EMPTY_CHAR + "'. If a row or column is invalid (doesn't match the pattern) this will be marked with a 'Red Color', a solved row or column is marked with a 'Green Color', but it may still be wrong because of the other columns or rows - keep trying!"
-                );
-            }
-        });
-    }
-    
-    
-    /**
-    * Dawgram board. This create the dawgram puzzle board with 
-    * both the cells and lables
-    */
-    private void DawgramBoard() {
-        // collect the nums for the rows and columns
-        int      numRows      = puzzle.getNumRows();
-        int      numCols      = puzzle.getNumCols();
-        int[][] rowNums       = new int[numRows][];
-        int[][] colNums       = new int[numCols][];
-        
-        for (int row=0; row<numRows; row++) {
-            rowNums[row] = puzzle.getRowNums(row);
-        }
-        
-        for (int col=0; col<numRows; col++) {
-            colNums[col] = puzzle.getColNums(col);
-        }        
-        
-        JPanel boardPanel = new JPanel();
-        boardPanel.setBackground(Color.BLACK);
-        this.getContentPane().add(boardPanel, BorderLayout.CENTER);
-        boardPanel.setLayout(new CardLayout(20, 10));
-        
-        JPanel boardPanelTileContainer = new JPanel();
-        boardPanelTileContainer.setBackground(Color.BLACK);
-        boardPanel.add(boardPanelTileContainer);
-        boardPanelTileContainer.setLayout(new GridLayout(6, 6, 2, 2));
-        
-        JPanel empty_tile = new JPanel();
-        empty_tile.setBackground(Color.BLACK);
-        boardPanelTileContainer.add(empty_tile);
-        empty_tile.setLayout(new BorderLayout(0, 0));
-        
-        JPanel top_label_1 = new JPanel();
-        top_label_1.setBackground(new Color(33, 222, 222));
-        boardPanelTileContainer.add(top_label_1);
-        top_label_1.setLayout(new CardLayout(17, 10));
-        
-        JTextPane topLabel_1_text = new JTextPane();
-        topLabel_1_text.setEditable(false);
-        topLabel_1_text.setFont(new Font("Tahoma", Font.BOLD, 11));
-        topLabel_1_text.setBackground(new Color(33, 222, 222));
-        topLabel_1_text.setText(String.valueOf(colNums[0][0]));
-        top_label_1.add(topLabel_1_text);
-        
-        JPanel top_label_2 = new JPanel();
-        top_label_2.setBackground(new Color(33, 222, 222));
-        boardPanelTileContainer.add(top_label_2);
-        top_label_2.setLayout(new CardLayout(17, 10));
-        
-        JTextPane topLabel_2_text = new JTextPane();
-        topLabel_2_text.setEditable(false);
-        topLabel_2_text.setFont(new Font("Tahoma", Font.BOLD, 11));
-        topLabel_2_text.setBackground(new Color(33, 222, 222));
-        topLabel_2_text.setText(String.valueOf(colNums[1][0]));
-        top_label_2.add(topLabel_2_text);
-        
-        JPanel top_label_3 = new JPanel();
-        top_label_3.setBackground(new Color(33, 222, 222));
-        boardPanelTileContainer.add(top_label_3);
-        top_label_3.setLayout(new CardLayout(17, 10));
-        
-        JTextPane topLabel_3_text = new JTextPane();
-        topLabel_3_text.setEditable(false);
-        topLabel_3_text.setBackground(new Color(33, 222, 222));
-        topLabel_3_text.setFont(new Font("Tahoma", Font.BOLD, 11));
-        topLabel_3_text.setText(String.valueOf(colNums[2][0]));
-        top_label_3.add(topLabel_3_text);
-        
-        JPanel top_label_4 = new JPanel();
-        top_label_4.setBackground(new Color(33, 222, 222));
-        boardPanelTileContainer.add(top_label_4);
-        top_label_4.setLayout(new CardLayout(17, 10));
-        
-        JTextPane topLabel_4_text = new JTextPane();
-        topLabel_4_text.setEditable(false);
-        topLabel_4_text.setFont(new Font("Tahoma", Font.BOLD, 11));
-        topLabel_4_text.setText(String.valueOf(colNums[3][0]));
-        topLabel_4_text.setBackground(new Color(33, 222, 222));
-        top_label_4.add(topLabel_4_text);
-        
-        JPanel top_label_5 = new JPanel();
-        top_label_5.setBackground(new Color(33, 222, 222));
-        boardPanelTileContainer.add(top_label_5);
-        top_label_5.setLayout(new CardLayout(17, 2));
-        
-        JTextPane topLabel_5_text = new JTextPane();
-        topLabel_5_text.setEditable(false);
-        topLabel_5_text.setBackground(new Color(33, 222, 222));
-        topLabel_5_text.setFont(new Font("Tahoma", Font.BOLD, 11));
-        topLabel_5_text.setText(String.valueOf(colNums[4][0]) + "\n" + String.valueOf(colNums[4][1]));
-        top_label_5.add(topLabel_5_text);
-        
-        JPanel left_label_1 = new JPanel();
-        left_label_1.setBackground(new Color(33, 222, 222));
-        boardPanelTileContainer.add(left_label_1);
-        left_label_1.setLayout(new CardLayout(13, 10));
-        
-        JTextPane leftLabel_1_text = new JTextPane();
-        leftLabel_1_text.setBackground(new Color(33, 222, 222));
-        leftLabel_1_text.setEditable(false);
-        leftLabel_1_text.setFont(new Font("Tahoma", Font.BOLD, 11));
-        leftLabel_1_text.setText(String.valueOf(rowNums[0][0]) + " " + String.valueOf(rowNums[0][1]));
-        left_label_1.add(leftLabel_1_text);
-        
-        JPanel cell_1 = new JPanel();
-        cell_1.setBackground(new Color(255, 255, 255));
-        cell_1.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_1);
-        cell_1.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_1 = new JButton("");
-        cellButton_1.setForeground(new Color(0, 0, 255));
-        cellButton_1.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_1.setBackground(new Color(255, 255, 255));
-        cell_1.add(cellButton_1, BorderLayout.CENTER);
-        cellButton_1.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_1.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_1.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 0;
-                int btnCol = 0;
-                
-                getUserMove(m, btnRow, btnCol);
-            }
-        });
-        
-        JPanel cell_2 = new JPanel();
-        cell_2.setBackground(new Color(255, 255, 255));
-        cell_2.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_2);
-        cell_2.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_2 = new JButton("");
-        cellButton_2.setForeground(new Color(0, 0, 255));
-        cellButton_2.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_2.setBackground(new Color(255, 255, 255));
-        cell_2.add(cellButton_2, BorderLayout.CENTER);
-        cellButton_2.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_2.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_2.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 0;
-                int btnCol = 1;
-                
-                getUserMove(m, btnRow, btnCol);
-            }
-        });
-        
-        JPanel cell_3 = new JPanel();
-        cell_3.setBackground(new Color(255, 255, 255));
-        cell_3.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_3);
-        cell_3.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_3 = new JButton("");
-        cellButton_3.setForeground(new Color(0, 0, 255));
-        cellButton_3.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_3.setBackground(new Color(255, 255, 255));
-        cell_3.add(cellButton_3, BorderLayout.CENTER);
-        cellButton_3.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_3.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_3.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 0;
-                int btnCol = 2;
-                
-                getUserMove(m, btnRow, btnCol);
-            }
-        });
-        
-        JPanel cell_4 = new JPanel();
-        cell_4.setBackground(new Color(255, 255, 255));
-        cell_4.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_4);
-        cell_4.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_4 = new JButton("");
-        cellButton_4.setForeground(new Color(0, 0, 255));
-        cellButton_4.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_4.setBackground(new Color(255, 255, 255));
-        cell_4.add(cellButton_4, BorderLayout.CENTER);
-        cellButton_4.addMouseListener(new MouseAdapter() {
+
+        FlowLayout flowLayout = (FlowLayout) menuPanel.getLayout();
+        flowLayout.setAlignment(FlowLayout.CENTER);
+        flowLayout.setVgap(10);
+
+        this.getContentPane().add(menuPanel, BorderLayout.NORTH);
+
+        JButton openButton = new JButton("Open");
+        menuPanel.add(openButton);
+        openButton.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_4.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_4.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 0;
-                int btnCol = 3;
-                
-                getUserMove(m, btnRow, btnCol);
+                JFileChooser chooser = new JFileChooser(new File("nons"));
+
+                if (chooser.showOpenDialog(DawgramGUI.this) == JFileChooser.APPROVE_OPTION)
+                    open(chooser.getSelectedFile());
             }
         });
-        
-        JPanel cell_5 = new JPanel();
-        cell_5.setBackground(new Color(255, 255, 255));
-        cell_5.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_5);
-        cell_5.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_5 = new JButton("");
-        cellButton_5.setForeground(new Color(0, 0, 255));
-        cellButton_5.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_5.setBackground(new Color(255, 255, 255));
-        cell_5.add(cellButton_5, BorderLayout.CENTER);
-        cellButton_5.addMouseListener(new MouseAdapter() {
+
+        JButton newButton = new JButton("New");
+        menuPanel.add(newButton);
+        newButton.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_5.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_5.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 0;
-                int btnCol = 4;
-                
-                getUserMove(m, btnRow, btnCol);
+                generate();
             }
         });
-        
-        JPanel left_label_2 = new JPanel();
-        left_label_2.setBackground(new Color(33, 222, 222));
-        boardPanelTileContainer.add(left_label_2);
-        left_label_2.setLayout(new CardLayout(13, 10));
-        
-        JTextPane leftLabel_2_text = new JTextPane();
-        leftLabel_2_text.setBackground(new Color(33, 222, 222));
-        leftLabel_2_text.setFont(new Font("Tahoma", Font.BOLD, 11));
-        leftLabel_2_text.setText(String.valueOf(rowNums[1][0]) + " " + String.valueOf(rowNums[1][1]));
-        leftLabel_2_text.setEditable(false);
-        left_label_2.add(leftLabel_2_text);
-        
-        JPanel cell_6 = new JPanel();
-        cell_6.setBackground(new Color(255, 255, 255));
-        cell_6.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_6);
-        cell_6.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_6 = new JButton("");
-        cellButton_6.setForeground(new Color(0, 0, 255));
-        cellButton_6.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_6.setBackground(new Color(255, 255, 255));
-        cell_6.add(cellButton_6, BorderLayout.CENTER);
-        cellButton_6.addMouseListener(new MouseAdapter() {
+
+        JButton saveButton = new JButton("Save");
+        menuPanel.add(saveButton);
+        saveButton.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_6.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_6.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 1;
-                int btnCol = 0;
-                
-                getUserMove(m, btnRow, btnCol);
+                runTask(new Task<String>("Saving") {
+                    @Override
+                    protected String work() {
+                        return puzzle.save(); // Save the current state of the puzzle
+                    }
+
+                    @Override
+                    protected void finish(String msg) {
+                        messageBox.setText(msg);
+                    }
+                });
             }
         });
-        
-        JPanel cell_7 = new JPanel();
-        cell_7.setBackground(new Color(255, 255, 255));
-        cell_7.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_7);
-        cell_7.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_7 = new JButton("");
-        cellButton_7.setForeground(new Color(0, 0, 255));
-        cellButton_7.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_7.setBackground(new Color(255, 255, 255));
-        cell_7.add(cellButton_7, BorderLayout.CENTER);
-        cellButton_7.addMouseListener(new MouseAdapter() {
+
+        JButton loadButton = new JButton("Load");
+        menuPanel.add(loadButton);
+        loadButton.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_7.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_7.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 1;
-                int btnCol = 1;
-                
-                getUserMove(m, btnRow, btnCol);
+                runTask(new Task<Stack<Assign>>("Loading") {
+                    @Override
+                    protected Stack<Assign> work() {
+                        return Dawgram.readSave(); // Read the saved state of the puzzle
+                    }
+
+                    @Override
+                    protected void finish(Stack<Assign> state) {
+                        if (state == null) {
+                            messageBox.setText("No saved game to load.");
+                        } else {
+                            puzzle.restore(state);
+                            messageBox.setText("Game loaded successfully.");
+                            updateHeatmap();
+                        }
+                    }
+                });
             }
         });
-        
-        JPanel cell_8 = new JPanel();
-        cell_8.setBackground(new Color(255, 255, 255));
-        cell_8.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_8);
-        cell_8.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_8 = new JButton("");
-        cellButton_8.setForeground(new Color(0, 0, 255));
-        cellButton_8.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_8.setBackground(new Color(255, 255, 255));
-        cell_8.add(cellButton_8, BorderLayout.CENTER);
-        cellButton_8.addMouseListener(new MouseAdapter() {
+
+        JButton undoButton = new JButton("Undo");
+        menuPanel.add(undoButton);
+        undoButton.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_8.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_8.setText("");
+                if (isIdle()) {
+                    puzzle.undo();
+                    updateHeatmap();
                 }
-                
-                char m = move();
-                int btnRow = 1;
-                int btnCol = 2;
-                
-                getUserMove(m, btnRow, btnCol);
             }
         });
-        
-        JPanel cell_9 = new JPanel();
-        cell_9.setBackground(new Color(255, 255, 255));
-        cell_9.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_9);
-        cell_9.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_9 = new JButton("");
-        cellButton_9.setForeground(new Color(0, 0, 255));
-        cellButton_9.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_9.setBackground(new Color(255, 255, 255));
-        cell_9.add(cellButton_9, BorderLayout.CENTER);
-        cellButton_9.addMouseListener(new MouseAdapter() {
+
+        JButton restartButton = new JButton("Restart");
+        menuPanel.add(restartButton);
+        restartButton.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_9.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_9.setText("");
+                if (isIdle()) {
+                    puzzle.clear();
+                    updateHeatmap();
                 }
-                
-                char m = move();
-                int btnRow = 1;
-                int btnCol = 3;
-                
-                getUserMove(m, btnRow, btnCol);
             }
         });
-        
-        JPanel cell_10 = new JPanel();
-        cell_10.setBackground(new Color(255, 255, 255));
-        cell_10.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_10);
-        cell_10.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_10 = new JButton("");
-        cellButton_10.setForeground(new Color(0, 0, 255));
-        cellButton_10.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_10.setBackground(new Color(255, 255, 255));
-        cell_10.add(cellButton_10, BorderLayout.CENTER);
-        cellButton_10.addMouseListener(new MouseAdapter() {
+
+        JButton hintButton = new JButton("Hint");
+        menuPanel.add(hintButton);
+        hintButton.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_10.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_10.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 1;
-                int btnCol = 4;
-                
-                getUserMove(m, btnRow, btnCol);
+                runTask(new Task<Hint>("Looking for a hint") {
+                    @Override
+                    protected Hint work() {
+                        Hint hint = puzzle.hint();
+
+                        // in the background there is time to fall back on the likeliest cell
+                        if (hint == null) {
+                            puzzle.getHeatmap().update();
+                            hint = puzzle.getHeatmap().likeliest();
+                        }
+
+                        return hint;
+                    }
+
+                    @Override
+                    protected void finish(Hint hint) {
+                        messageBox.setText(DawgramUI.hintText(hint));
+                    }
+                });
             }
         });
-        
-        JPanel left_label_3 = new JPanel();
-        left_label_3.setBackground(new Color(33, 222, 222));
-        boardPanelTileContainer.add(left_label_3);
-        left_label_3.setLayout(new CardLayout(17, 10));
-        
-        JTextPane leftLabel_3_text = new JTextPane();
-        leftLabel_3_text.setEditable(false);
-        leftLabel_3_text.setBackground(new Color(33, 222, 222));
-        leftLabel_3_text.setFont(new Font("Tahoma", Font.BOLD, 11));
-        leftLabel_3_text.setText(String.valueOf(rowNums[2][0]));
-        left_label_3.add(leftLabel_3_text);
-        
-        JPanel cell_11 = new JPanel();
-        cell_11.setBackground(new Color(255, 255, 255));
-        cell_11.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_11);
-        cell_11.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_11 = new JButton("");
-        cellButton_11.setForeground(new Color(0, 0, 255));
-        cellButton_11.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_11.setBackground(new Color(255, 255, 255));
-        cell_11.add(cellButton_11, BorderLayout.CENTER);
-        cellButton_11.addMouseListener(new MouseAdapter() {
+
+        JButton solveButton = new JButton("Solve");
+        menuPanel.add(solveButton);
+        solveButton.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_11.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_11.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 2;
-                int btnCol = 0;
-                
-                getUserMove(m, btnRow, btnCol);
+                solve(false);
             }
         });
-        
-        JPanel cell_12 = new JPanel();
-        cell_12.setBackground(new Color(255, 255, 255));
-        cell_12.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_12);
-        cell_12.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_12 = new JButton("");
-        cellButton_12.setForeground(new Color(0, 0, 255));
-        cellButton_12.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_12.setBackground(new Color(255, 255, 255));
-        cell_12.add(cellButton_12, BorderLayout.CENTER);
-        cellButton_12.addMouseListener(new MouseAdapter() {
+
+        JButton watchButton = new JButton("Watch");
+        menuPanel.add(watchButton);
+        watchButton.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_12.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_12.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 2;
-                int btnCol = 1;
-                
-                getUserMove(m, btnRow, btnCol);
+                solve(true);
             }
         });
-        
-        JPanel cell_13 = new JPanel();
-        cell_13.setBackground(new Color(255, 255, 255));
-        cell_13.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_13);
-        cell_13.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_13 = new JButton("");
-        cellButton_13.setForeground(new Color(0, 0, 255));
-        cellButton_13.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_13.setBackground(new Color(255, 255, 255));
-        cell_13.add(cellButton_13, BorderLayout.CENTER);
-        cellButton_13.addMouseListener(new MouseAdapter() {
+
+        JButton heatButton = new JButton("Heat");
+        menuPanel.add(heatButton);
+        heatButton.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_13.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_13.setText("");
+                if (isIdle()) {
+                    showHeatmap = !showHeatmap;
+                    updateHeatmap();
                 }
-                
-                char m = move();
-                int btnRow = 2;
-                int btnCol = 2;
-                
-                getUserMove(m, btnRow, btnCol);
             }
         });
-        
-        JPanel cell_14 = new JPanel();
-        cell_14.setBackground(new Color(255, 255, 255));
-        cell_14.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_14);
-        cell_14.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_14 = new JButton("");
-        cellButton_14.setForeground(new Color(0, 0, 255));
-        cellButton_14.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_14.setBackground(new Color(255, 255, 255));
-        cell_14.add(cellButton_14, BorderLayout.CENTER);
-        cellButton_14.addMouseListener(new MouseAdapter() {
+
+        JButton fitButton = new JButton("Fit");
+        menuPanel.add(fitButton);
+        fitButton.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_14.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_14.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 2;
-                int btnCol = 3;
-                
-                getUserMove(m, btnRow, btnCol);
+                board.fit();
             }
         });
-        
-        JPanel cell_15 = new JPanel();
-        cell_15.setBackground(new Color(255, 255, 255));
-        cell_15.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_15);
-        cell_15.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_15 = new JButton("");
-        cellButton_15.setForeground(new Color(0, 0, 255));
-        cellButton_15.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_15.setBackground(new Color(255, 255, 255));
-        cell_15.add(cellButton_15, BorderLayout.CENTER);
-        cellButton_15.addMouseListener(new MouseAdapter() {
+
+        JButton cancelButton = new JButton("Cancel");
+        menuPanel.add(cancelButton);
+        cancelButton.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_15.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_15.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 2;
-                int btnCol = 4;
-                
-                getUserMove(m, btnRow, btnCol);
+                if (task != null)
+                    task.cancel(true);
+
+                if (watchTrace != null)
+                    watchTrace.close(); // the solver may be waiting for the viewer
             }
         });
-        
-        JPanel left_label_4 = new JPanel();
-        left_label_4.setBackground(new Color(33, 222, 222));
-        boardPanelTileContainer.add(left_label_4);
-        left_label_4.setLayout(new CardLayout(8, 10));
-        
-        JTextPane leftLabel_4_text = new JTextPane();
-        leftLabel_4_text.setBackground(new Color(33, 222, 222));
-        leftLabel_4_text.setEditable(false);
-        leftLabel_4_text.setFont(new Font("Tahoma", Font.BOLD, 11));
-        leftLabel_4_text.setText(
-            String.valueOf(rowNums[3][0]) + " " + String.valueOf(rowNums[3][1]) + " " + String.valueOf(rowNums[3][2])
-        );
-        left_label_4.add(leftLabel_4_text);
-        
-        JPanel cell_16 = new JPanel();
-        cell_16.setBackground(new Color(255, 255, 255));
-        cell_16.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_16);
-        cell_16.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_16 = new JButton("");
-        cellButton_16.setForeground(new Color(0, 0, 255));
-        cellButton_16.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_16.setBackground(new Color(255, 255, 255));
-        cell_16.add(cellButton_16, BorderLayout.CENTER);
-        cellButton_16.addMouseListener(new MouseAdapter() {
+
+        JButton helpButton = new JButton("Help");
+        menuPanel.add(helpButton);
+        helpButton.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_16.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_16.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 3;
-                int btnCol = 0;
-                
-                getUserMove(m, btnRow, btnCol);
+                messageBox.setText(
+                    "Dawgram is a puzzle where you must color in/fill in the grid according to the patterns of contiguous full cells given in the rows and columns. Full cells are shown as '" + FULL_CHAR + "', unknown cells as 'Blank Cell' and cells you are sure are empty as '" + EMPTY_CHAR + "'. Left click a cell to cycle it through full, empty and unknown; right click to mark it empty. If a row or column is invalid (doesn't match the pattern) this will be marked with a 'Red Color', a solved row or column is marked with a 'Green Color', but it may still be wrong because of the other columns or rows - keep trying! Watch solves while showing the solver at work. Use the mouse wheel to zoom, drag to move around and Fit to see the whole board again. Open, New, Save, Load, Hint, Solve and Heat run in the background: Cancel stops them."
+                );
             }
         });
-        
-        JPanel cell_17 = new JPanel();
-        cell_17.setBackground(new Color(255, 255, 255));
-        cell_17.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_17);
-        cell_17.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_17 = new JButton("");
-        cellButton_17.setForeground(new Color(0, 0, 255));
-        cellButton_17.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_17.setBackground(new Color(255, 255, 255));
-        cell_17.add(cellButton_17, BorderLayout.CENTER);
-        cellButton_17.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_17.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_17.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 3;
-                int btnCol = 1;
-                
-                getUserMove(m, btnRow, btnCol);
-            }
+    }
+
+
+    /**
+    * Dawgram board. This creates the dawgram puzzle board, a single component
+    * painting both the cells and the clues for a puzzle of any size
+    */
+    private void DawgramBoard() {
+        boardPanel = new JPanel();
+        boardPanel.setBackground(Color.BLACK);
+        this.getContentPane().add(boardPanel, BorderLayout.CENTER);
+        boardPanel.setLayout(new CardLayout(20, 10));
+
+        showBoard();
+    }
+
+
+    /**
+    * Show a board for the current puzzle, replacing any board already shown
+    */
+    private void showBoard() {
+        if (board != null)
+            boardPanel.remove(board);
+
+        board = new BoardView(puzzle);
+        boardPanel.add(board);
+        boardPanel.revalidate();
+        boardPanel.repaint();
+
+        board.setCellListener((row, col, e) -> {
+            if (!isIdle())
+                return;
+
+            char m = move(puzzle.getState(row, col), SwingUtilities.isRightMouseButton(e));
+
+            getUserMove(m, row, col);
         });
-        
-        JPanel cell_18 = new JPanel();
-        cell_18.setBackground(new Color(255, 255, 255));
-        cell_18.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_18);
-        cell_18.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_18 = new JButton("");
-        cellButton_18.setForeground(new Color(0, 0, 255));
-        cellButton_18.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_18.setBackground(new Color(255, 255, 255));
-        cell_18.add(cellButton_18, BorderLayout.CENTER);
-        cellButton_18.addMouseListener(new MouseAdapter() {
+    }
+
+
+    /**
+    * Dialogue box. This create a dialogue box for updating the player
+    * on certain information or it's used to send messages to the player.
+    */
+    private void DialogueBox() {
+        JPanel dialogueBoxPanel = new JPanel();
+        dialogueBoxPanel.setBackground(new Color(255, 0, 0));
+        this.getContentPane().add(dialogueBoxPanel, BorderLayout.SOUTH);
+        dialogueBoxPanel.setLayout(new CardLayout(5, 5));
+
+        messageBox = new JTextPane();
+        messageBox.setFont(new Font("Tahoma", Font.BOLD, 11));
+        messageBox.setEditable(false);
+        dialogueBoxPanel.add(messageBox);
+    }
+
+
+    /**
+    * Read a dawgram puzzle from a .non file
+    *
+    * @param file the .non file
+    * @return the puzzle
+    */
+    private static Dawgram readPuzzle(File file) {
+        try (Scanner fs = new Scanner(file)) {
+            return new Dawgram(fs);
+        } catch (FileNotFoundException e) {
+            throw new DawgramException(file + " not found");
+        }
+    }
+
+
+    /**
+    * Open a puzzle file, reading it in the background
+    *
+    * @param file the .non file
+    */
+    private void open(File file) {
+        runTask(new Task<Dawgram>("Opening " + file.getName()) {
             @Override
-            public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_18.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_18.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 3;
-                int btnCol = 2;
-                
-                getUserMove(m, btnRow, btnCol);
+            protected Dawgram work() {
+                return readPuzzle(file);
             }
-        });
-        
-        JPanel cell_19 = new JPanel();
-        cell_19.setBackground(new Color(255, 255, 255));
-        cell_19.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_19);
-        cell_19.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_19 = new JButton("");
-        cellButton_19.setForeground(new Color(0, 0, 255));
-        cellButton_19.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_19.setBackground(new Color(255, 255, 255));
-        cell_19.add(cellButton_19, BorderLayout.CENTER);
-        cellButton_19.addMouseListener(new MouseAdapter() {
+
             @Override
-            public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_19.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_19.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 3;
-                int btnCol = 3;
-                
-                getUserMove(m, btnRow, btnCol);
+            protected void finish(Dawgram opened) {
+                play(opened);
+                messageBox.setText("Opened " + file.getName());
             }
         });
-        
-        JPanel cell_20 = new JPanel();
-        cell_20.setBackground(new Color(255, 255, 255));
-        cell_20.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_20);
-        cell_20.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_20 = new JButton("");
-        cellButton_20.setForeground(new Color(0, 0, 255));
-        cellButton_20.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_20.setBackground(new Color(255, 255, 255));
-        cell_20.add(cellButton_20, BorderLayout.CENTER);
-        cellButton_20.addMouseListener(new MouseAdapter() {
+    }
+
+
+    /**
+    * Generate a new puzzle (with a unique solution) the size of the current one, in the background
+    */
+    private void generate() {
+        int numRows = puzzle.getNumRows();
+        int numCols = puzzle.getNumCols();
+
+        runTask(new Task<Dawgram>("Generating a " + numCols + "x" + numRows + " puzzle") {
             @Override
-            public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_20.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_20.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 3;
-                int btnCol = 4;
-                
-                getUserMove(m, btnRow, btnCol);
+            protected Dawgram work() {
+                Generator generator = new Generator(numRows, numCols, GENERATE_DENSITY, System.nanoTime());
+
+                return new Dawgram(new Scanner(generator.generate(0)));
             }
-        });
-        
-        JPanel left_label_5 = new JPanel();
-        left_label_5.setBackground(new Color(33, 222, 222));
-        boardPanelTileContainer.add(left_label_5);
-        left_label_5.setLayout(new CardLayout(17, 10));
-        
-        JTextPane leftLabel_5_text = new JTextPane();
-        leftLabel_5_text.setBackground(new Color(33, 222, 222));
-        leftLabel_5_text.setEditable(false);
-        leftLabel_5_text.setFont(new Font("Tahoma", Font.BOLD, 11));
-        leftLabel_5_text.setText(String.valueOf(rowNums[4][0]));
-        left_label_5.add(leftLabel_5_text);
-        
-        JPanel cell_21 = new JPanel();
-        cell_21.setBackground(new Color(255, 255, 255));
-        cell_21.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_21);
-        cell_21.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_21 = new JButton("");
-        cellButton_21.setForeground(new Color(0, 0, 255));
-        cellButton_21.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_21.setBackground(new Color(255, 255, 255));
-        cell_21.add(cellButton_21, BorderLayout.CENTER);
-        cellButton_21.addMouseListener(new MouseAdapter() {
+
             @Override
-            public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_21.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_21.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 4;
-                int btnCol = 0;
-                
-                getUserMove(m, btnRow, btnCol);
+            protected void finish(Dawgram generated) {
+                play(generated);
+                messageBox.setText("New " + numCols + "x" + numRows + " puzzle generated");
             }
         });
-        
-        JPanel cell_22 = new JPanel();
-        cell_22.setBackground(new Color(255, 255, 255));
-        cell_22.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_22);
-        cell_22.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_22 = new JButton("");
-        cellButton_22.setForeground(new Color(0, 0, 255));
-        cellButton_22.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_22.setBackground(new Color(255, 255, 255));
-        cell_22.add(cellButton_22, BorderLayout.CENTER);
-        cellButton_22.addMouseListener(new MouseAdapter() {
+    }
+
+
+    /**
+    * Switch to playing another puzzle
+    *
+    * @param next the puzzle to play
+    */
+    private void play(Dawgram next) {
+        puzzle.deleteObserver(board);
+        puzzle = next;
+        showBoard();
+        updateHeatmap();
+    }
+
+
+    /**
+    * Solve the puzzle from its current cells in the background, a slice of line solves at a time
+    * (reporting progress and checking for Cancel between slices), then fill in every proven cell
+    *
+    * @param watch show the solver at work in a SolverViewer?
+    */
+    private void solve(boolean watch) {
+        if (!isIdle())
+            return;
+
+        SolverTrace trace = watch ? new SolverTrace() : null;
+
+        if (watch)
+            new SolverViewer(puzzle, trace);
+
+        watchTrace = trace;
+
+        runTask(new Task<Solver>(watch ? "Solving (watched)" : "Solving") {
             @Override
-            public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_22.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_22.setText("");
+            protected Solver work() {
+                Solver solver = new Solver(puzzle, BitLineSolver::new);
+                int    status = Solver.PARTIAL;
+
+                solver.setTrace(trace);
+
+                while ((status == Solver.PARTIAL) && !isCancelled()) {
+                    long solves = solver.getLineSolves();
+
+                    status = solver.solve(SOLVE_SLICE);
+
+                    if (solver.getLineSolves() - solves < SOLVE_SLICE)
+                        break; // stalled, not out of budget
+
+                    progress("Solving... " + solver.getNumUnknown() + " cells unknown after "
+                             + solver.getLineSolves() + " line solves");
                 }
-                
-                char m = move();
-                int btnRow = 4;
-                int btnCol = 1;
-                
-                getUserMove(m, btnRow, btnCol);
+
+                return solver;
             }
-        });
-        
-        JPanel cell_23 = new JPanel();
-        cell_23.setBackground(new Color(255, 255, 255));
-        cell_23.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_23);
-        cell_23.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_23 = new JButton("");
-        cellButton_23.setForeground(new Color(0, 0, 255));
-        cellButton_23.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_23.setBackground(new Color(255, 255, 255));
-        cell_23.add(cellButton_23, BorderLayout.CENTER);
-        cellButton_23.addMouseListener(new MouseAdapter() {
+
             @Override
-            public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_23.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_23.setText("");
-                }
-                
-                char m = move();
-                int btnRow = 4;
-                int btnCol = 2;
-                
-                getUserMove(m, btnRow, btnCol);
+            protected void done() {
+                watchTrace = null;
+                super.done();
             }
-        });
-        
-        JPanel cell_24 = new JPanel();
-        cell_24.setBackground(new Color(255, 255, 255));
-        cell_24.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_24);
-        cell_24.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_24 = new JButton("");
-        cellButton_24.setForeground(new Color(0, 0, 255));
-        cellButton_24.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_24.setBackground(new Color(255, 255, 255));
-        cell_24.add(cellButton_24, BorderLayout.CENTER);
-        cellButton_24.addMouseListener(new MouseAdapter() {
+
             @Override
-            public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_24.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_24.setText("");
+            protected void finish(Solver solver) {
+                if (solver.isContradiction()) {
+                    messageBox.setText("The cells played so far cannot be part of a solution - try Undo.");
+
+                    return;
                 }
-                
-                char m = move();
-                int btnRow = 4;
-                int btnCol = 3;
-                
-                getUserMove(m, btnRow, btnCol);
-            }
-        });
-        
-        JPanel cell_25 = new JPanel();
-        cell_25.setBackground(new Color(255, 255, 255));
-        cell_25.setBorder(new LineBorder(new Color(255, 0, 0), 2));
-        boardPanelTileContainer.add(cell_25);
-        cell_25.setLayout(new BorderLayout(0, 0));
-        
-        JButton cellButton_25 = new JButton("");
-        cellButton_25.setForeground(new Color(0, 0, 255));
-        cellButton_25.setFont(new Font("Tahoma", Font.BOLD, 15));
-        cellButton_25.setBackground(new Color(255, 255, 255));
-        cell_25.add(cellButton_25, BorderLayout.CENTER);
-        cellButton_25.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                if (moveState != UNKNOWN_CHAR) {
-                    cellButton_25.setText(String.valueOf(moveState));
-                } else {
-                    cellButton_25.setText("");
+
+                // one batch, so the board hears of the proven cells (and repaints) once
+                List<Assign> proven = new ArrayList<>();
+
+                for (int row=0; row<puzzle.getNumRows(); row++) {
+                    for (int col=0; col<puzzle.getNumCols(); col++) {
+                        int state = solver.getState(row, col);
+
+                        if ((state != Dawgram.UNKNOWN) && (puzzle.getState(row, col) == Dawgram.UNKNOWN))
+                            proven.add(new Assign(row, col, state));
+                    }
                 }
-                
-                char m = move();
-                int btnRow = 4;
-                int btnCol = 4;
-                
-                getUserMove(m, btnRow, btnCol);
+
+                int filled = proven.size();
+
+                if (filled > 0)
+                    puzzle.setStates(proven);
+
+                messageBox.setText(solver.isSolved() ? "Solved (" + filled + " cells filled in)."
+                                                     : filled + " cells filled in; the rest need guessing.");
+                updateHeatmap();
             }
         });
     }
-    
-    
-    /**
-    * Dialogue box. This create a dialogue box for updating the player
-    * on certain information or it's used to send messages to the player.
-    */
-    private void DialogueBox() {
-        JPanel dialogueBoxPanel = new JPanel();
-        dialogueBoxPanel.setBackground(new Color(255, 0, 0));
-        this.getContentPane().add(dialogueBoxPanel, BorderLayout.SOUTH);
-        dialogueBoxPanel.setLayout(new CardLayout(5, 5));
-            
-        messageBox = new JTextPane();
-        messageBox.setFont(new Font("Tahoma", Font.BOLD, 11));
-        messageBox.setEditable(false);
-        dialogueBoxPanel.add(messageBox);
-    }
-    
-    
-    /**
-    * Dawgram puzzle. This create the dawgram puzzle
-    */
-    private void DawgramPuzzle() {
-        Scanner fs = null;
-        
-        try {
-            fs = new Scanner(new File(NGFILE));
-        } catch (FileNotFoundException e) {
-            messageBox.setText(NGFILE + " not found");
-        }
-        
-        puzzle     = new Dawgram(fs);
-    }
-    
-    
+
+
     /**
-     * Make a move
-     * 
-     * @return the current move state
+     * Make a move: a left click cycles the cell through full, empty and unknown,
+     * a right click toggles it between empty and unknown
+     *
+     * @param state the current state of the cell
+     * @param isRightClick was the right mouse button clicked?
+     * @return the state char for the move
      */
-    private char move() {
-        if (moveState == FULL_CHAR) {
-            moveState = EMPTY_CHAR;
-            
+    private char move(int state, boolean isRightClick) {
+        if (isRightClick)
+            return (state == Dawgram.EMPTY) ? UNKNOWN_CHAR : EMPTY_CHAR;
+
+        if (state == Dawgram.UNKNOWN) {
             return FULL_CHAR;
-        } else if (moveState == EMPTY_CHAR) {
-            moveState = UNKNOWN_CHAR;
-            
+        } else if (state == Dawgram.FULL) {
             return EMPTY_CHAR;
         } else {
-            moveState = FULL_CHAR;
-            
             return UNKNOWN_CHAR;
         }
     }
-    
-    
+
+
     /**
     * Get the user's move
     */
     private void getUserMove(char c, int row, int col) {
         int state = DawgramUI.stateFromChar(c);
-        
+
         Assign userMove = new Assign(row, col, state);
-        
+
         puzzle.setState(userMove);
+
+        updateHeatmap();
+    }
+
+
+    /**
+    * Shade each unknown cell by its estimated probability of being FULL, updating the heatmap in
+    * the background (or clear the shading if the heatmap is off)
+    */
+    private void updateHeatmap() {
+        if (!showHeatmap) {
+            board.setHeatmap(null);
+
+            return;
+        }
+
+        runTask(new Task<Heatmap>("Sampling solutions") {
+            @Override
+            protected Heatmap work() {
+                puzzle.getHeatmap().update();
+
+                return puzzle.getHeatmap();
+            }
+
+            @Override
+            protected void finish(Heatmap heatmap) {
+                board.setHeatmap(heatmap);
+                messageBox.setText("Darker cells are FULL in more of the sampled solutions");
+            }
+        });
+    }
+
+
+    /**
+    * Is no task running?  If one is, say so
+    *
+    * @return true if idle, otherwise false
+    */
+    private boolean isIdle() {
+        if (task == null)
+            return true;
+
+        messageBox.setText(task.getName() + (task.isCancelled() ? "... stopping" : "... (Cancel to stop)"));
+
+        return false;
+    }
+
+
+    /**
+    * Start a task in the background, unless one is already running
+    *
+    * @param t the task
+    */
+    private void runTask(Task<?> t) {
+        if (!isIdle())
+            return;
+
+        task = t;
+        messageBox.setText(t.getName() + "...");
+        t.execute();
+    }
+
+
+    /**
+    * Some work to run off the Event Dispatch Thread.  work() runs in the background and may call
+    * progress(); finish() gets its result back on the Event Dispatch Thread, unless the task was
+    * cancelled or failed, which is reported in the message box instead.  The task only counts as
+    * over once work() has returned, even if cancelled sooner, so no other task (or move) can
+    * overlap it.
+    */
+    private abstract class Task<T> extends SwingWorker<T, String> {
+        /**
+        * Constructor
+        *
+        * @param name what the task is doing, for the message box
+        */
+        Task(String name) {
+            this.name = name;
+        }
+
+        /**
+        * Do the work (in the background)
+        *
+        * @return the result
+        */
+        protected abstract T work() throws Exception;
+
+        /**
+        * Use the result (on the Event Dispatch Thread)
+        *
+        * @param result the result of work()
+        */
+        protected abstract void finish(T result);
+
+        /**
+        * Report progress (from work()) to the message box
+        *
+        * @param msg the progress message
+        */
+        protected void progress(String msg) {
+            publish(msg);
+        }
+
+        /**
+        * Retrieve the name of the task
+        *
+        * @return the name
+        */
+        String getName() {
+            return name;
+        }
+
+        @Override
+        protected T doInBackground() throws Exception {
+            try {
+                return work();
+            } finally {
+                SwingUtilities.invokeLater(() -> task = null); // runs before done()
+            }
+        }
+
+        @Override
+        protected void process(List<String> msgs) {
+            if (!isCancelled())
+                messageBox.setText(msgs.get(msgs.size()-1)); // only the latest matters
+        }
+
+        @Override
+        protected void done() {
+            try {
+                finish(get());
+            } catch (CancellationException e) {
+                messageBox.setText(name + " cancelled.");
+            } catch (InterruptedException e) {
+                messageBox.setText(name + " interrupted.");
+            } catch (ExecutionException e) {
+                messageBox.setText(name + " failed: " + e.getCause().getMessage());
+            }
+        }
+
+        private String name = null;
     }
-      
-      
+
+
     public static void main(String[] args) {
-        new DawgramGUI(); // create an instance of dawgram gui
+        Dawgram puzzle = readPuzzle(new File((args.length > 0) ? args[0] : NGFILE));
+
+        SwingUtilities.invokeLater(() -> new DawgramGUI(puzzle)); // create an instance of dawgram gui
     }
-    
-    
-    private Scanner  scnr   = null;
+
+
     private Dawgram puzzle = null;
-    
+
     private JTextPane messageBox = null;
-    private char moveState = FULL_CHAR;
-    
+    private JPanel boardPanel = null;
+    private BoardView board = null;
+    private boolean showHeatmap = false;
+    private Task<?> task = null; // the running background task, if any
+    private SolverTrace watchTrace = null; // the trace of a watched solve, while running
+
     private static final String NGFILE   = "nons/tiny.non";
+    private static final long SOLVE_SLICE = 2000; // line solves between progress reports
+    private static final double GENERATE_DENSITY = 0.6;
     public static final char EMPTY_CHAR   = 'X';
     public static final char FULL_CHAR    = '@';
     public static final char UNKNOWN_CHAR = '.';
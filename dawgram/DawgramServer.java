@@ -0,0 +1,565 @@
+/**
+* An embedded HTTP server holding many Dawgram games at once, one per session, for many players.
+*
+* Each request runs on its own virtual thread, so thousands of players can wait on the network
+* at once without a thread each.  Sessions are kept in a SessionStore, which holds the recently
+* used ones in memory within a budget and hibernates the rest to disk; the requests of a session
+* take turns on its puzzle (a Dawgram is not thread-safe), while different sessions proceed in
+* parallel.  Requests and replies are JSON:
+*
+*     GET    /sessions                  the numbers of sessions, and the store's metrics
+*     POST   /sessions                  create a session: the body is a .non puzzle, or empty
+*                                       to generate one (query rows, cols and seed, optional)
+*     POST   /sessions/{id}/move        a move: {"row":0,"col":3,"state":1}
+*     POST   /sessions/{id}/batch       several moves at once: [{"row":0,"col":3,"state":1}, ...]
+*     POST   /sessions/{id}/undo        undo the last move
+*     GET    /sessions/{id}/hint        the next forced cell, if any
+*     GET    /sessions/{id}/state       the cells, one digit (Dawgram.EMPTY, FULL or UNKNOWN)
+*                                       per cell, row by row
+*     GET    /sessions/{id}/solved      is the puzzle solved?
+*     DELETE /sessions/{id}             end the session
+*
+* Hints are forced ones only: falling back on the heatmap samples solutions for up to seconds,
+* which would hold the session (and load the shared fork-join pool) far too long per request.
+*
+* Errors are replied as {"error":"..."}, with status 400 for a bad request, 404 for an unknown
+* session, 405 for a wrong method, 413 for a body (or an uploaded puzzle) too big, 503 when there
+* are too many sessions and 500 for anything else.
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+
+public class DawgramServer {
+    /**
+     * Constructor (the server does not take requests until started), hibernating sessions to a
+     * new temporary directory once they take over a quarter of the heap
+     *
+     * @param address the address to listen on, e.g. localhost and a port (port 0 for any free one)
+     * @param maxSessions the most sessions held at once
+     * @throws IOException if the address cannot be listened on
+     */
+    public DawgramServer(InetSocketAddress address, int maxSessions) throws IOException {
+        this(address, maxSessions, new SessionStore(Files.createTempDirectory("dawgram-sessions"), Runtime.getRuntime().maxMemory()/4));
+    }
+
+    /**
+     * Constructor (the server does not take requests until started)
+     *
+     * @param address the address to listen on, e.g. localhost and a port (port 0 for any free one)
+     * @param maxSessions the most sessions held at once (in memory or hibernated)
+     * @param store where the sessions are kept
+     * @throws IOException if the address cannot be listened on
+     */
+    public DawgramServer(InetSocketAddress address, int maxSessions, SessionStore store) throws IOException {
+        if (address == null)
+            throw new IllegalArgumentException("address cannot be null");
+
+        if (store == null)
+            throw new IllegalArgumentException("store cannot be null");
+
+        if (maxSessions <= 0)
+            throw new IllegalArgumentException("maxSessions must be > 0 (" + maxSessions + ")");
+
+        // reply without waiting on Nagle's algorithm: a reply goes out as headers then body, and
+        // the body would otherwise wait for the client's delayed acknowledgement (about 40 ms).
+        // The JDK server reads this when it first starts, so it is set before any is created.
+        if (System.getProperty(NODELAY_PROPERTY) == null)
+            System.setProperty(NODELAY_PROPERTY, "true");
+
+        this.maxSessions = maxSessions;
+        this.store       = store;
+        this.executor    = Executors.newVirtualThreadPerTaskExecutor();
+        this.server      = HttpServer.create(address, BACKLOG);
+
+        server.createContext(PATH, this::handle);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Start taking requests
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop taking requests, and hibernate every session (so a server on the same store directory
+     * can carry on with them)
+     *
+     * @param delaySeconds the most time to wait for requests under way to finish
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        store.hibernateAll();
+    }
+
+    /**
+     * Retrieve the port listened on
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Retrieve the number of sessions held
+     *
+     * @return the number of sessions
+     */
+    public int getNumSessions() {
+        return store.getNumSessions();
+    }
+
+    /**
+     * Retrieve the store the sessions are kept in (e.g. for its metrics)
+     *
+     * @return the store
+     */
+    public SessionStore getStore() {
+        return store;
+    }
+
+    /**
+     * Handle a request, replying with JSON
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        int    status = 200;
+        String reply;
+
+        try {
+            reply = gson.toJson(route(exchange));
+        } catch (HttpError e) {
+            status = e.getStatus();
+            reply  = error(e.getMessage());
+        } catch (IllegalArgumentException | DawgramException | JsonParseException e) {
+            status = 400;
+            reply  = error(e.getMessage());
+        } catch (Throwable e) {
+            // anything else (even running out of memory) still gets a reply, not a hung client
+            status = 500;
+            reply  = error(e.toString());
+        }
+
+        byte[] body = reply.getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Work out which request this is, and carry it out
+     *
+     * @return the reply
+     */
+    private Object route(HttpExchange exchange) throws IOException {
+        String   method = exchange.getRequestMethod();
+        String   path   = exchange.getRequestURI().getPath().substring(PATH.length());
+        String[] parts  = path.split("/");
+        String   id     = (parts.length > 1) ? parts[1] : "";
+        String   action = (parts.length > 2) ? parts[2] : "";
+
+        if ((parts.length > 3) || (!path.isEmpty() && !path.startsWith("/")))
+            throw new HttpError(404, "unknown path");
+
+        if (id.isEmpty()) {
+            if (method.equals("GET"))
+                return metrics();
+
+            expect(method, "POST");
+
+            return create(readBody(exchange), exchange.getRequestURI().getRawQuery());
+        }
+
+        Function<Dawgram, JsonObject> work;
+
+        switch (action) {
+            case "":
+                expect(method, "DELETE");
+
+                if (!store.remove(id))
+                    throw new HttpError(404, "unknown session (" + id + ")");
+
+                return new JsonObject();
+
+            case "move":
+                expect(method, "POST");
+
+                Assign move = gson.fromJson(readBody(exchange), Assign.class);
+
+                work = puzzle -> move(puzzle, move);
+                break;
+
+            case "batch":
+                expect(method, "POST");
+
+                Assign[] moves = gson.fromJson(readBody(exchange), Assign[].class);
+
+                work = puzzle -> batch(puzzle, moves);
+                break;
+
+            case "undo":
+                expect(method, "POST");
+
+                work = DawgramServer::undo;
+                break;
+
+            case "hint":
+                expect(method, "GET");
+
+                work = DawgramServer::hint;
+                break;
+
+            case "state":
+                expect(method, "GET");
+
+                work = DawgramServer::state;
+                break;
+
+            case "solved":
+                expect(method, "GET");
+
+                work = DawgramServer::solved;
+                break;
+
+            default:
+                throw new HttpError(404, "unknown action (" + action + ")");
+        }
+
+        JsonObject reply = store.apply(id, work);
+
+        if (reply == null)
+            throw new HttpError(404, "unknown session (" + id + ")");
+
+        return reply;
+    }
+
+    /**
+     * Create a session, from the .non text given or else a generated puzzle
+     */
+    private JsonObject create(String non, String query) {
+        // checked first, so a full server refuses before generating or parsing anything
+        // (creates racing each other may overshoot by a few)
+        if (store.getNumSessions() >= maxSessions)
+            throw new HttpError(503, "too many sessions (" + maxSessions + ")");
+
+        if (non.isBlank()) {
+            int  numRows = queryInt(query, "rows", DEFAULT_SIZE);
+            int  numCols = queryInt(query, "cols", DEFAULT_SIZE);
+            long seed    = queryInt(query, "seed", (int) System.nanoTime());
+
+            if ((numRows > MAX_GENERATE_SIZE) || (numCols > MAX_GENERATE_SIZE))
+                throw new IllegalArgumentException("cannot generate puzzles over " + MAX_GENERATE_SIZE + "x" + MAX_GENERATE_SIZE);
+
+            non = new Generator(numRows, numCols, GENERATE_DENSITY, seed).generate(0);
+        } else {
+            checkUploadSize(non);
+        }
+
+        Dawgram puzzle;
+
+        try {
+            puzzle = new Dawgram(new Scanner(non));
+            puzzle.setHeatmapHints(false); // forced hints only: a heatmap samples for seconds
+        } catch (RuntimeException e) {
+            throw (e instanceof DawgramException) ? e : new DawgramException("invalid puzzle (" + e + ")");
+        }
+
+        String id = UUID.randomUUID().toString();
+
+        store.add(id, puzzle);
+
+        JsonObject reply = new JsonObject();
+
+        reply.addProperty("id", id);
+        reply.addProperty("rows", puzzle.getNumRows());
+        reply.addProperty("cols", puzzle.getNumCols());
+
+        return reply;
+    }
+
+    /**
+     * Check an uploaded puzzle is not too big to hold, from its width and height lines alone
+     * (read as Dawgram reads them), before any of it is built; a malformed size is left for
+     * Dawgram to report
+     */
+    private static void checkUploadSize(String non) {
+        long numRows = 0;
+        long numCols = 0;
+
+        for (String line : non.split("\n")) {
+            boolean width  = line.startsWith("width");
+            boolean height = line.startsWith("height");
+
+            if (!width && !height)
+                continue;
+
+            String[] fields = line.split("\\W");
+            long     size;
+
+            try {
+                size = Long.parseLong(fields[1]);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                continue;
+            }
+
+            if (size > MAX_UPLOAD_SIZE)
+                throw new HttpError(413, "puzzles over " + MAX_UPLOAD_SIZE + " rows or columns are not taken");
+
+            if (width)
+                numCols = Math.max(numCols, size);
+            else
+                numRows = Math.max(numRows, size);
+        }
+
+        if (numRows*numCols > MAX_UPLOAD_CELLS)
+            throw new HttpError(413, "puzzles over " + MAX_UPLOAD_CELLS + " cells are not taken");
+    }
+
+    /**
+     * The numbers of sessions, and how well the store is keeping them in memory
+     */
+    private JsonObject metrics() {
+        JsonObject reply = new JsonObject();
+
+        reply.addProperty("sessions", store.getNumSessions());
+        reply.addProperty("inMemory", store.getNumInMemory());
+        reply.addProperty("bytesInMemory", store.getBytesInMemory());
+        reply.addProperty("maxBytes", store.getMaxBytes());
+        reply.addProperty("hits", store.getHits());
+        reply.addProperty("misses", store.getMisses());
+        reply.addProperty("hibernations", store.getHibernations());
+        reply.addProperty("rehydrations", store.getRehydrations());
+        reply.addProperty("meanRehydrateMicros", store.getMeanRehydrateNanos() / 1000);
+        reply.addProperty("maxRehydrateMicros", store.getMaxRehydrateNanos() / 1000);
+
+        return reply;
+    }
+
+    /**
+     * Check the method of a request
+     */
+    private static void expect(String method, String expected) {
+        if (!method.equals(expected))
+            throw new HttpError(405, "expected " + expected + ", not " + method);
+    }
+
+    /**
+     * Read the body of a request as text (at most MAX_BODY bytes)
+     */
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY + 1);
+
+            if (body.length > MAX_BODY)
+                throw new HttpError(413, "request body over " + MAX_BODY + " bytes");
+
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Find an integer in a query string (e.g. rows=20&cols=30)
+     */
+    private static int queryInt(String query, String name, int defaultValue) {
+        if (query == null)
+            return defaultValue;
+
+        for (String param : query.split("&")) {
+            int eq = param.indexOf('=');
+
+            if ((eq > 0) && URLDecoder.decode(param.substring(0, eq), StandardCharsets.UTF_8).equals(name)) {
+                String value = URLDecoder.decode(param.substring(eq+1), StandardCharsets.UTF_8);
+
+                try {
+                    return Integer.parseInt(value);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("non-integer " + name + " (" + value + ")");
+                }
+            }
+        }
+
+        return defaultValue;
+    }
+
+    private String error(String msg) {
+        JsonObject reply = new JsonObject();
+
+        reply.addProperty("error", String.valueOf(msg));
+
+        return gson.toJson(reply);
+    }
+
+    // the requests on the puzzle of a session (made holding the session, see SessionStore.apply)
+
+    private static JsonObject move(Dawgram puzzle, Assign move) {
+        if (move == null)
+            throw new IllegalArgumentException("cannot have null move");
+
+        puzzle.setState(new Assign(move.getRow(), move.getCol(), move.getState())); // checked
+
+        return solved(puzzle);
+    }
+
+    private static JsonObject batch(Dawgram puzzle, Assign[] moves) {
+        if (moves == null)
+            throw new IllegalArgumentException("cannot have null moves");
+
+        List<Assign> checked = new ArrayList<>(moves.length);
+
+        for (Assign move : moves) {
+            if (move == null)
+                throw new IllegalArgumentException("cannot have null move");
+
+            checked.add(new Assign(move.getRow(), move.getCol(), move.getState()));
+        }
+
+        puzzle.setStates(checked);
+
+        return solved(puzzle);
+    }
+
+    private static JsonObject undo(Dawgram puzzle) {
+        boolean undone = puzzle.canUndo();
+
+        if (undone)
+            puzzle.undo();
+
+        JsonObject reply = solved(puzzle);
+
+        reply.addProperty("undone", undone);
+
+        return reply;
+    }
+
+    private static JsonObject hint(Dawgram puzzle) {
+        Hint       hint  = puzzle.hint();
+        JsonObject reply = new JsonObject();
+
+        if (hint != null) {
+            reply.addProperty("row", hint.getRow());
+            reply.addProperty("col", hint.getCol());
+            reply.addProperty("state", hint.getState());
+            reply.addProperty("forced", hint.isForced());
+            reply.addProperty(hint.isRow() ? "forcedByRow" : "forcedByCol", hint.getLine());
+        }
+
+        return reply;
+    }
+
+    private static JsonObject state(Dawgram puzzle) {
+        int          numRows = puzzle.getNumRows();
+        int          numCols = puzzle.getNumCols();
+        StringBuffer cells   = new StringBuffer(numRows*numCols);
+
+        for (int row=0; row<numRows; row++)
+            for (int col=0; col<numCols; col++)
+                cells.append((char) ('0' + puzzle.getState(row, col)));
+
+        JsonObject reply = solved(puzzle);
+
+        reply.addProperty("rows", numRows);
+        reply.addProperty("cols", numCols);
+        reply.addProperty("cells", cells.toString());
+
+        return reply;
+    }
+
+    private static JsonObject solved(Dawgram puzzle) {
+        JsonObject reply = new JsonObject();
+
+        reply.addProperty("solved", puzzle.isSolved());
+
+        return reply;
+    }
+
+    /**
+     * A request that fails with a given HTTP status
+     */
+    @SuppressWarnings("serial")
+    private static class HttpError extends RuntimeException {
+        HttpError(int status, String msg) {
+            super(msg);
+
+            this.status = status;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        private final int status;
+    }
+
+    /**
+     * Run a server on localhost
+     *
+     * @param args the port (default 8080), the most sessions (default 100000), the memory budget
+     *             for sessions in MB (default a quarter of the heap) and the directory to hibernate
+     *             sessions in (default a new temporary one)
+     */
+    public static void main(String[] args) throws IOException {
+        int  port        = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int  maxSessions = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_MAX_SESSIONS;
+        long maxBytes    = (args.length > 2) ? Long.parseLong(args[2]) << 20 : Runtime.getRuntime().maxMemory()/4;
+        Path dir         = (args.length > 3) ? Path.of(args[3]) : Files.createTempDirectory("dawgram-sessions");
+
+        DawgramServer server = new DawgramServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), maxSessions,
+                                                 new SessionStore(dir, maxBytes));
+
+        server.start();
+        System.out.println("Dawgram server on http://localhost:" + server.getPort() + PATH + ", hibernating to " + dir);
+    }
+
+    public static final int     DEFAULT_PORT         = 8080;
+    public static final int     DEFAULT_MAX_SESSIONS = 100000;
+    public static final String  PATH                 = "/sessions";
+    private static final String NODELAY_PROPERTY     = "sun.net.httpserver.nodelay";
+    private static final int    BACKLOG              = 4096;            // connections waiting to be accepted
+    private static final int    MAX_BODY             = 4 << 20;         // bytes in a request
+    private static final int    DEFAULT_SIZE         = 10;              // of generated puzzles
+    private static final int    MAX_GENERATE_SIZE    = 50;
+    private static final int    MAX_UPLOAD_SIZE      = 2000;            // rows or columns of an uploaded puzzle
+    private static final int    MAX_UPLOAD_CELLS     = 1 << 20;         // cells of an uploaded puzzle
+    private static final double GENERATE_DENSITY     = 0.6;
+
+    private final HttpServer                          server;
+    private final ExecutorService                     executor;
+    private final int                                 maxSessions;
+    private final SessionStore                        store;
+    private final Gson                                gson        = new Gson();
+}
@@ -11,7 +11,6 @@ package dawgram;
 
 import java.io.*;
 import java.util.*;
-import java.util.regex.*;
 
 
 public class DawgramUI {
@@ -19,13 +18,25 @@ public class DawgramUI {
      * Default constructor
      */
     public DawgramUI() {
+        this(NGFILE);
+    }
+    
+    /**
+     * Constructor
+     * 
+     * @param file the puzzle (.non) file
+     */
+    public DawgramUI(String file) {
+        if (file == null)
+            throw new IllegalArgumentException("file cannot be null");
+        
         scnr       = new Scanner(System.in);
         Scanner fs = null;
         
         try {
-            fs = new Scanner(new File(NGFILE));
+            fs = new Scanner(new File(file));
         } catch (FileNotFoundException e) {
-            System.out.println(NGFILE + " not found");
+            System.out.println(file + " not found");
         }
         
         puzzle     = new Dawgram(fs);
@@ -54,62 +65,75 @@ public class DawgramUI {
                 maxRowNumsLen = rowNums[row].length;
         }
         
-        for (int col=0; col<numRows; col++) {
+        for (int col=0; col<numCols; col++) {
             colNums[col] = puzzle.getColNums(col);
         
             if (colNums[col].length > maxColNumsLen)
                 maxColNumsLen = colNums[col].length;
         }
         
+        // indices and clues above 61 take more than one character: every index is idxWidth
+        // wide, and every clue clueWidth (written downwards over the columns)
+        int idxWidth  = numWidth(Math.max(numRows, numCols)-1);
+        int clueWidth = clueWidth(puzzle);
+        int pad       = maxRowNumsLen*(clueWidth+1) + idxWidth + 3;
+        
         // nums for columns
         StringBuffer sb = new StringBuffer();
         
-        sb.append(" ".repeat(2*maxRowNumsLen+4));
+        sb.append(" ".repeat(pad));
         sb.append("-".repeat(numCols));
         sb.append("\n");
         
         for (int i=0; i<maxColNumsLen; i++) {
-            sb.append(" ".repeat(2*maxRowNumsLen+4));
-        
-            for (int col=0; col<numCols; col++)
-                if (i < colNums[col].length)
-                    sb.append(numAsChar(colNums[col][i]));
-                else
-                    sb.append(" ");
+            for (int digit=0; digit<clueWidth; digit++) {
+                sb.append(" ".repeat(pad));
             
-            sb.append("\n");
+                for (int col=0; col<numCols; col++)
+                    if (i < colNums[col].length)
+                        sb.append(numAsString(colNums[col][i], clueWidth).charAt(digit));
+                    else
+                        sb.append(" ");
+                
+                sb.append("\n");
+            }
         }
         
-        sb.append(" ".repeat(2*maxRowNumsLen+4));
+        sb.append(" ".repeat(pad));
         sb.append("-".repeat(numCols));
         sb.append("\n");
-        sb.append(" ".repeat(2*maxRowNumsLen+4));
+        sb.append(" ".repeat(pad));
         
         for (int col=0; col<numCols; col++)
             sb.append(alertChar(false, col));
         
         sb.append("\n");
-        sb.append(" ".repeat(2*maxRowNumsLen+4));
         
-        for (int col=0; col<numCols; col++)
-            sb.append(numAsChar(col));
+        for (int digit=0; digit<idxWidth; digit++) {
+            sb.append(" ".repeat(pad));
+        
+            for (int col=0; col<numCols; col++)
+                sb.append(numAsString(col, idxWidth).charAt(digit));
+            
+            sb.append("\n");
+        }
         
-        sb.append("\n\n");
+        sb.append("\n");
         
         // nums for row and the grid
         for (int row=0; row<numRows; row++) {
             sb.append("[");
         
             for (int i=0; i<rowNums[row].length; i++) {
-                sb.append(numAsChar(rowNums[row][i]));
+                sb.append(numAsString(rowNums[row][i], clueWidth));
                 if (i<rowNums[row].length-1)
                     sb.append(" ");
             }
             
             sb.append("]");
-            sb.append(" ".repeat(2*(maxRowNumsLen-rowNums[row].length)));
+            sb.append(" ".repeat((clueWidth+1)*(maxRowNumsLen-rowNums[row].length)));
             sb.append(alertChar(true, row));
-            sb.append(numAsChar(row) + " ");
+            sb.append(numAsString(row, idxWidth) + " ");
             sb.append(seqAsChar(puzzle.getRowSequence(row), showFullOnly) + "\n");
         }
         
@@ -127,6 +151,26 @@ public class DawgramUI {
         return display(false);
     }
     
+    /**
+     * The width of the widest clue of a puzzle, in base 62 digits
+     * 
+     * @param puzzle the puzzle
+     * @return the number of digits
+     */
+    public static int clueWidth(Dawgram puzzle) {
+        int max = 0;
+        
+        for (int row=0; row<puzzle.getNumRows(); row++)
+            for (int num : puzzle.getRowNums(row))
+                max = Math.max(max, num);
+        
+        for (int col=0; col<puzzle.getNumCols(); col++)
+            for (int num : puzzle.getColNums(col))
+                max = Math.max(max, num);
+        
+        return numWidth(max);
+    }
+    
     /**
      * Provides the character to annotate each row to indicate if it is valid or solved
      * 
@@ -165,7 +209,7 @@ public class DawgramUI {
     public void menu() {
         String command = "";
         
-        System.out.println(display(puzzle.isSolved()));
+        show();
         
         while (!command.equalsIgnoreCase("Quit") && !puzzle.isSolved())  {
             displayMenu();
@@ -173,11 +217,45 @@ public class DawgramUI {
             execute(command);
       if (command.equalsIgnoreCase("Quit"))
           break;
-            System.out.println(display(puzzle.isSolved()));
+            show();
+            
+            if (checkMistakes)
+                System.out.println("mistakes: " + puzzle.getMistakes());
         
             if (puzzle.isSolved())
                 System.out.println("puzzle is solved");
         }
+        
+        if (ansi != null)
+            ansi.close();
+    }
+    
+    /**
+     * Show the puzzle: in ANSI mode only the changes since it was last shown are sent, otherwise
+     * the whole board is printed again
+     */
+    private void show() {
+        if (ansi != null) {
+            ansi.setShowFullOnly(puzzle.isSolved());
+            ansi.render();
+        } else {
+            System.out.println(display(puzzle.isSolved()));
+        }
+    }
+    
+    /**
+     * Turn ANSI mode on or off.  In ANSI mode the board stays at the top of the terminal and is
+     * updated in place; it needs a terminal that understands ANSI escape sequences.
+     * 
+     * @param on true to turn ANSI mode on, false for the plain full display
+     */
+    public void setAnsi(boolean on) {
+        if (on && (ansi == null)) {
+            ansi = new AnsiRenderer(puzzle, System.out);
+        } else if (!on && (ansi != null)) {
+            ansi.close();
+            ansi = null;
+        }
     }
     
     /**
@@ -190,9 +268,17 @@ public class DawgramUI {
         System.out.println("   Row multi move     [R]");
         System.out.println("   Col multi move     [C]");
         System.out.println("   Undo assignment    [U]");
+        System.out.println("   Hint            [Hint]");
+        System.out.println("   Check mistakes [Check]");
+        System.out.println("   Auto-fill       [Auto]");
         System.out.println("   Restart puzzle [Clear]");
         System.out.println("   Save to file    [Save]");
         System.out.println("   Load from file  [Load]");
+        System.out.println("   ANSI display    [Ansi]");
+        
+        if (ansi != null)
+            System.out.println("   Redraw board  [Redraw]");
+        
         System.out.println("   To end program  [Quit]");    
     }
     
@@ -214,6 +300,9 @@ public class DawgramUI {
    */
     private void execute(String command) {
         if (command.equalsIgnoreCase("Quit")) {
+            if (ansi != null)
+                ansi.close();
+            
             System.out.println("Program closing down");
             System.exit(0);
         } else if (command.equalsIgnoreCase("H")) {
@@ -226,12 +315,22 @@ public class DawgramUI {
             colMultiMove();
         } else if (command.equalsIgnoreCase("U")) {
             undo();
+        } else if (command.equalsIgnoreCase("Hint")) {
+            hint();
+        } else if (command.equalsIgnoreCase("Check")) {
+            check();
+        } else if (command.equalsIgnoreCase("Auto")) {
+            autoFill();
         } else if (command.equalsIgnoreCase("Clear")) {
             clear();
         } else if (command.equalsIgnoreCase("Save")) {
             save();
         } else if (command.equalsIgnoreCase("Load")) {
             load();
+        } else if (command.equalsIgnoreCase("Ansi")) {
+            setAnsi(ansi == null);
+        } else if (command.equalsIgnoreCase("Redraw") && (ansi != null)) {
+            ansi.redraw();
         } else {
             System.out.println("Unknown command (" + command + ")");
         }
@@ -263,6 +362,12 @@ public class DawgramUI {
         }
         
         puzzle.setState(userMove);
+        
+        if (checkMistakes && puzzle.isMistake(userMove.getRow(), userMove.getCol()))
+            System.out.println("that move is wrong");
+        
+        if (!puzzle.getLastAutoFill().isEmpty())
+            System.out.println(puzzle.getLastAutoFill().size() + " forced cells filled in");
     }
     
   /**
@@ -271,12 +376,12 @@ public class DawgramUI {
    * @return the user move
    */
   private Assign getUserMove() {
-    int row   = getInt("Enter row (0 to " + numAsChar(puzzle.getNumRows()-1) + "): ");
+    int row   = getInt("Enter row (0 to " + numAsString(puzzle.getNumRows()-1) + "): ");
     
     if ((row<0) || (row>(puzzle.getNumRows()-1)))
       return null;
     
-    int col   = getInt("Enter col (0 to " + numAsChar(puzzle.getNumCols()-1) + "): ");
+    int col   = getInt("Enter col (0 to " + numAsString(puzzle.getNumCols()-1) + "): ");
     
     if ((col<0) || (col>(puzzle.getNumCols()-1)))
       return null;
@@ -313,17 +418,17 @@ public class DawgramUI {
    * @return the move as list of moves (or null on error)
    */
   private ArrayList<Assign> getRowMultiUserMove() {
-    int row = getInt("Enter row (0 to " + numAsChar(puzzle.getNumRows()-1) + "): ");
+    int row = getInt("Enter row (0 to " + numAsString(puzzle.getNumRows()-1) + "): ");
     
     if ((row<0) || (row>(puzzle.getNumRows()-1)))
       return null;
     
-    int first = getInt("Enter first col (0 to " + numAsChar(puzzle.getNumCols()-1) + "): ");
+    int first = getInt("Enter first col (0 to " + numAsString(puzzle.getNumCols()-1) + "): ");
     
     if ((first<0) || (first>(puzzle.getNumCols()-1)))
       return null;
     
-    int last  = getInt("Enter last col (0 to " + numAsChar(puzzle.getNumCols()-1) + "): ");
+    int last  = getInt("Enter last col (0 to " + numAsString(puzzle.getNumCols()-1) + "): ");
     
     if ((last<0) || (last>(puzzle.getNumCols()-1)))
       return null;
@@ -366,17 +471,17 @@ public class DawgramUI {
    * @return the move as an array-list of moves (or null on error)
    */
   private ArrayList<Assign> getColMultiUserMove() {
-    int col = getInt("Enter col (0 to " + numAsChar(puzzle.getNumCols()-1) + "): ");
+    int col = getInt("Enter col (0 to " + numAsString(puzzle.getNumCols()-1) + "): ");
     
     if ((col<0) || (col>(puzzle.getNumCols()-1)))
       return null;
     
-    int first = getInt("Enter first row (0 to " + numAsChar(puzzle.getNumRows()-1) + "): ");
+    int first = getInt("Enter first row (0 to " + numAsString(puzzle.getNumRows()-1) + "): ");
     
     if ((first<0) || (first>(puzzle.getNumRows()-1)))
       return null;
     
-    int last  = getInt("Enter last row (0 to " + numAsChar(puzzle.getNumRows()-1) + "): ");
+    int last  = getInt("Enter last row (0 to " + numAsString(puzzle.getNumRows()-1) + "): ");
     
     if ((last<0) || (last>(puzzle.getNumRows()-1)))
       return null;
@@ -401,66 +506,136 @@ public class DawgramUI {
    * Undo the last move made on the puzzle
    */
   public void undo() {
-      char c = getChar("Undo move (Y/N)?: ");
-      
-      if (c == 'Y') {
-          // Undo the last move made on the puzzle
+      if (confirm("Undo move (Y/N)?: "))
           puzzle.undo();
-      } else if (c == 'N') {
-          return;
+  }
+  
+  /**
+   * Show the next logically forced cell
+   */
+  public void hint() {
+      System.out.println(hintText(puzzle.hint()));
+  }
+  
+  /**
+   * Turn mistake checking on or off; when on, every move is checked against the goal
+   */
+  public void check() {
+      if (checkMistakes) {
+          checkMistakes = false;
+          System.out.println("mistake checking off");
+      } else if (puzzle.hasGoal() || puzzle.solveGoal()) {
+          checkMistakes = true;
+          System.out.println("mistake checking on");
       } else {
-          undo();
-      };
+          System.out.println("the solution is not known, so mistakes cannot be checked");
+      }
+  }
+  
+  /**
+   * Turn auto-fill on or off; when on, the cells each move forces are filled in automatically
+   */
+  public void autoFill() {
+      puzzle.setAutoFill(!puzzle.isAutoFill());
+      System.out.println("auto-fill " + (puzzle.isAutoFill() ? "on" : "off"));
+  }
+  
+  /**
+   * Describe a hint for the player
+   * 
+   * @param h the hint (or null if there is none)
+   * @return the description
+   */
+  public static String hintText(Hint h) {
+      if (h == null)
+          return "No single row or column forces a cell - try the other rows and columns together.";
+      
+      if (!h.isForced())
+          return "Nothing is forced, but cell (row " + numAsString(h.getRow()) + ", col " + numAsString(h.getCol())
+                  + ") is '" + stateAsChar(h.getState()) + "' in " + Math.round(100*h.getProbability()) + "% of solutions";
+      
+      return (h.isRow() ? "Row " : "Col ") + numAsString(h.getLine()) + " forces cell (row " + numAsString(h.getRow())
+              + ", col " + numAsString(h.getCol()) + ") to be '" + stateAsChar(h.getState()) + "'";
   }
   
   /**
    * Reset the puzzle
    */
   public void clear() {
-      char c = getChar("Restart the puzzle (Y/N)?: ");
-      
-      if (c == 'Y') {
-          // Clear the current state of the puzzle
+      if (confirm("Restart the puzzle (Y/N)?: "))
           puzzle.clear();
-      } else if (c == 'N') {
-          return;
-      } else {
-          clear();
-      };
   }
   
   /**
    * Save the state of the puzzle
    */
   public void save() {
-      char c = getChar("Save game (Y/N)?: ");
-      
-      if (c == 'Y') { 
-        // Save the current state of the puzzle
-        String msg = puzzle.save();
-        
-        System.out.println(msg);
-      } else if (c == 'N') {
-          return;
-      } else {
-          save();
-      };
+      if (confirm("Save game (Y/N)?: "))
+          System.out.println(puzzle.save());
   }
   
   /**
    * Save the state of the puzzle
    */
   public void load() {
-      char c = getChar("Load saved game (Y/N)?: ");
-      
-      if (c == 'Y') { 
-        // Load saved game
+      if (confirm("Load saved game (Y/N)?: "))
           puzzle.load();
-      } else if (c == 'N') {
-          return;
-      } else {
-          load();
-      };
+  }
+  
+  /**
+   * Ask the user to confirm, until they answer Y or N
+   * 
+   * @param prompt a string to prompt the user
+   * @return true for Y, false for N (or the end of the input)
+   */
+  private boolean confirm(String prompt) {
+      while (true) {
+          char c = getChar(prompt);
+          
+          if (c == 'Y')
+              return true;
+          else if ((c == 'N') || !scnr.hasNextLine())
+              return false;
+      }
+  }
+  
+  /**
+   * Play a script of moves (see MoveScript) without prompting, then print the puzzle and how
+   * long the script took
+   * 
+   * @param file the script file, or "-" for the standard input
+   * @return true if the whole script was played, false on an error
+   */
+  public boolean replay(String file) {
+      if (file == null)
+          throw new IllegalArgumentException("file cannot be null");
+      
+      MoveScript script = new MoveScript(puzzle);
+      boolean    ok     = true;
+      
+      try (Reader in = file.equals("-") ? new InputStreamReader(System.in) : new FileReader(file)) {
+          script.play(in);
+      } catch (IOException e) {
+          System.out.println("cannot read script " + file + " (" + e.getMessage() + ")");
+          ok = false;
+      } catch (DawgramException e) {
+          System.out.println(e.getMessage());
+          ok = false;
+      }
+      
+      double seconds = script.getNanos() / 1e9;
+      
+      System.out.println(display(puzzle.isSolved()));
+      System.out.printf("%d lines, %d moves, %d undos in %.3f s (%.0f moves/s)%n",
+                        script.getNumLines(), script.getNumMoves(), script.getNumUndos(), seconds,
+                        (seconds > 0) ? script.getNumMoves()/seconds : 0.0);
+      
+      if (puzzle.hasGoal())
+          System.out.println("mistakes: " + puzzle.getMistakes());
+      
+      System.out.println(puzzle.isSolved() ? "puzzle is solved" : "puzzle is not solved");
+      
+      return ok;
   }
   
   /**
@@ -476,13 +651,13 @@ public class DawgramUI {
     System.out.print (prompt);
     
     if (!scnr.hasNext()) {
-      scnr.nextLine(); // clear the line
+      if (scnr.hasNextLine())
+        scnr.nextLine(); // clear the line
  
       return -1;
     }
     
-    char c   = scnr.next().charAt(0);
-    int  num = numFromChar(c);
+    int num = numFromString(scnr.next());
     
     scnr.nextLine(); // clear the line
     
@@ -502,7 +677,8 @@ public class DawgramUI {
     System.out.print (prompt);
     
     if (!scnr.hasNext()) {
-      scnr.nextLine(); // clear the line
+      if (scnr.hasNextLine())
+        scnr.nextLine(); // clear the line
       
       return '?'; // sentinel, not equal to one of the established chars
     }
@@ -518,23 +694,86 @@ public class DawgramUI {
    * Get a number from a character representation (0-9A-Za-z)
    * 
    * @param c the character representation
-   * @return the integer representation (or -1 on error)
+   * @return the integer representation
    */
   public static int numFromChar(char c) {
-      final String  regex = "[0-9A-Za-z]";
-      final Pattern pat   = Pattern.compile(regex);
+      int num = digitValue(c);
       
-      if (!pat.matcher(""+c).matches())
-          throw new IllegalArgumentException("c must be " + regex);
+      if (num < 0)
+          throw new IllegalArgumentException("c must be [0-9A-Za-z] (" + c + ")");
       
-        if ((c >= '0') && (c <= '9'))
-            return (int) (c-'0');
-        else if ((c >= 'A') && (c <= 'Z'))
-            return (int) (c-'A'+10);
-        else if ((c >= 'a') && (c <= 'z'))
-            return (int) (c -'a'+36);
-        else
-            return -1; // should never happen
+      return num;
+  }
+  
+  /**
+   * Get a number from its representation as one or more base 62 digits (0-9A-Za-z), most
+   * significant first, e.g. "A" is 10 and "1A" is 72.  Surrounding spaces are ignored.  Nothing
+   * is allocated, so this is cheap enough for scripted input.
+   * 
+   * @param s the representation
+   * @return the number (or -1 on error)
+   */
+  public static int numFromString(CharSequence s) {
+      if (s == null)
+          throw new IllegalArgumentException("s cannot be null");
+      
+      return numFromString(s, 0, s.length());
+  }
+  
+  /**
+   * Get a number from its representation as base 62 digits, from part of a sequence of
+   * characters (e.g. one token of a line of a script)
+   * 
+   * @param s the characters
+   * @param start the index of the first character of the representation
+   * @param end the index after the last
+   * @return the number (or -1 on error)
+   */
+  public static int numFromString(CharSequence s, int start, int end) {
+      if (s == null)
+          throw new IllegalArgumentException("s cannot be null");
+      
+      if ((start < 0) || (end > s.length()) || (start > end))
+          throw new IllegalArgumentException("invalid range " + start + ".." + end + " of " + s.length());
+      
+      while ((start < end) && (s.charAt(start) == ' '))
+          start++;
+      
+      while ((end > start) && (s.charAt(end-1) == ' '))
+          end--;
+      
+      if (start == end)
+          return -1;
+      
+      int num = 0;
+      
+      for (int i=start; i<end; i++) {
+          int digit = digitValue(s.charAt(i));
+          
+          if ((digit < 0) || (num > (Integer.MAX_VALUE-digit)/NUM_BASE))
+              return -1;
+          
+          num = num*NUM_BASE + digit;
+      }
+      
+      return num;
+  }
+  
+  /**
+   * The value of a base 62 digit (0-9A-Za-z)
+   * 
+   * @param c the digit
+   * @return its value (or -1 if not a digit)
+   */
+  private static int digitValue(char c) {
+      if ((c >= '0') && (c <= '9'))
+          return c - '0';
+      else if ((c >= 'A') && (c <= 'Z'))
+          return c - 'A' + 10;
+      else if ((c >= 'a') && (c <= 'z'))
+          return c - 'a' + 36;
+      else
+          return -1;
   }
     
   /**
@@ -556,6 +795,61 @@ public class DawgramUI {
             return '?';
     }
     
+    /**
+     * Get a representation of a number as base 62 digits (0-9A-Za-z), as many as it needs
+     * 
+     * @param i the integer (must be positive)
+     * @return the representation
+     */
+    public static String numAsString(int i) {
+        return numAsString(i, 1);
+    }
+    
+    /**
+     * Get a representation of a number as base 62 digits (0-9A-Za-z), padded on the left with
+     * spaces to a given width
+     * 
+     * @param i the integer (must be positive)
+     * @param width the least number of characters
+     * @return the representation
+     */
+    public static String numAsString(int i, int width) {
+        if (i < 0)
+            throw new IllegalArgumentException("i must be >= 0 (" + i + ")");
+        
+        char[] digits = new char[Math.max(width, numWidth(i))];
+        int    pos    = digits.length;
+        
+        do {
+            digits[--pos] = numAsChar(i % NUM_BASE);
+            i            /= NUM_BASE;
+        } while (i > 0);
+        
+        while (pos > 0)
+            digits[--pos] = ' ';
+        
+        return new String(digits);
+    }
+    
+    /**
+     * The number of base 62 digits needed to show all the numbers up to a given one (so every
+     * number fits in the same width, e.g. for indices and clues)
+     * 
+     * @param max the largest number (must be positive)
+     * @return the number of digits
+     */
+    public static int numWidth(int max) {
+        if (max < 0)
+            throw new IllegalArgumentException("max must be >= 0 (" + max + ")");
+        
+        int width = 1;
+        
+        for (long limit=NUM_BASE; max>=limit; limit*=NUM_BASE)
+            width++;
+        
+        return width;
+    }
+    
     /**
      * Check if a character represents a valid cell state
      * 
@@ -653,14 +947,45 @@ public class DawgramUI {
             return Dawgram.UNKNOWN;
     }
     
+    /**
+     * Usage: DawgramUI [-ansi] [-script file|-] [puzzle.non]
+     * 
+     * -ansi updates the board in place rather than printing it again after every command;
+     * -script plays a script of moves (from the standard input for -) instead of the menu.
+     */
     public static void main(String[] args) {
-        DawgramUI ui = new DawgramUI();
+        boolean ansi   = false;
+        String  script = null;
+        String  file   = NGFILE;
+        
+        for (int i=0; i<args.length; i++) {
+            if (args[i].equalsIgnoreCase("-ansi")) {
+                ansi = true;
+            } else if (args[i].equalsIgnoreCase("-script") && (i+1 < args.length)) {
+                script = args[++i];
+            } else if (args[i].startsWith("-")) {
+                System.out.println("usage: DawgramUI [-ansi] [-script file|-] [puzzle.non]");
+                System.exit(2);
+            } else {
+                file = args[i];
+            }
+        }
+        
+        DawgramUI ui = new DawgramUI(file);
+        
+        if (script != null)
+            System.exit(ui.replay(script) ? 0 : 1);
+        
+        if (ansi)
+            ui.setAnsi(true);
         
     ui.menu();
     }
     
     private Scanner  scnr   = null;
     private Dawgram puzzle = null;
+    private boolean checkMistakes = false; // report moves that disagree with the goal
+    private AnsiRenderer ansi = null;      // in ANSI mode, the renderer keeping the board up to date
     
     private static final String NGFILE   = "nons/tiny.non";
     public static final char EMPTY_CHAR   = 'X';
@@ -668,4 +993,5 @@ public class DawgramUI {
     public static final char UNKNOWN_CHAR = '.';
     public static final char INVALID_CHAR = '?';
     public static final char SOLVED_CHAR  = '*';
+    public static final int  NUM_BASE     = 62;  // the digits 0-9A-Za-z
 }
@@ -0,0 +1,248 @@
+/**
+* The difficulty of a Dawgram puzzle, rated by how hard the solver has to work on it.
+*
+* The solver stack is run from the clues alone: bulk-synchronous propagation first (counting the
+* rounds), then probing if that stalls, then backtracking search if probing stalls too.  The
+* rating is then:
+*
+*   EASY      - solved by propagation in at most EASY_ROUNDS rounds
+*   MEDIUM    - solved by propagation
+*   HARD      - solved with probing, no search needed
+*   FIENDISH  - search needed
+*   NOT_RATED - not a proper puzzle: no solution, more than one, or too much search to tell
+*
+* Run over a directory of .non files, main() rates them all in parallel and writes a PuzzleIndex.
+* Files that fail the Prefilter are rejected without being rated.
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Scanner;
+
+
+public class Difficulty {
+    /**
+     * Constructor, rating a puzzle from its clues (its current cell states are ignored)
+     *
+     * @param ng the dawgram puzzle to rate
+     */
+    public Difficulty(Dawgram ng) {
+        if (ng == null)
+            throw new IllegalArgumentException("ng cannot be null");
+
+        int[][] rowNums = new int[ng.getNumRows()][];
+        int[][] colNums = new int[ng.getNumCols()][];
+
+        for (int row=0; row<rowNums.length; row++)
+            rowNums[row] = ng.getRowNums(row);
+
+        for (int col=0; col<colNums.length; col++)
+            colNums[col] = ng.getColNums(col);
+
+        Solver solver = new Solver(rowNums, colNums, BitLineSolver::new);
+
+        // always run in bulk-synchronous rounds, so the round count means the same for any size
+        solver.setParallelThreshold(0);
+        solver.propagate();
+
+        rounds       = solver.getRounds();
+        lineSolvable = solver.isSolved();
+
+        solver.setParallelThreshold(Integer.MAX_VALUE);
+
+        int solutions = 1;
+
+        if (!solver.isSolved() && !solver.isContradiction()) {
+            solver.probe();
+
+            if (!solver.isSolved() && !solver.isContradiction())
+                solutions = solver.countSolutions(2, MAX_SEARCH_NODES);
+        }
+
+        if (solver.isContradiction() && (solutions == 1))
+            solutions = 0;
+
+        probes      = solver.getProbes();
+        searchNodes = solver.getSearchNodes();
+        maxDepth    = solver.getMaxDepth();
+
+        if (solutions != 1)
+            rating = NOT_RATED;
+        else if (lineSolvable)
+            rating = (rounds <= EASY_ROUNDS) ? EASY : MEDIUM;
+        else if (searchNodes == 0)
+            rating = HARD;
+        else
+            rating = FIENDISH;
+    }
+
+    /**
+     * Retrieve the rating
+     *
+     * @return EASY, MEDIUM, HARD, FIENDISH or NOT_RATED
+     */
+    public int getRating() {
+        return rating;
+    }
+
+    /**
+     * Is the puzzle solvable by propagation (one line at a time) alone?
+     *
+     * @return true if line solvable, otherwise false
+     */
+    public boolean isLineSolvable() {
+        return lineSolvable;
+    }
+
+    /**
+     * Retrieve the number of propagation rounds (a row phase then a column phase)
+     *
+     * @return the number of rounds
+     */
+    public long getRounds() {
+        return rounds;
+    }
+
+    /**
+     * Retrieve the number of probes made once propagation stalled
+     *
+     * @return the number of probes
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * Retrieve the number of search nodes visited once probing stalled
+     *
+     * @return the number of search nodes
+     */
+    public long getSearchNodes() {
+        return searchNodes;
+    }
+
+    /**
+     * Retrieve the deepest chain of guesses made by the search
+     *
+     * @return the maximum search depth
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Retrieve the name of a rating
+     *
+     * @param rating the rating
+     * @return the name, e.g. "EASY"
+     */
+    public static String ratingName(int rating) {
+        if ((rating < 0) || (rating >= RATING_NAMES.length))
+            throw new IllegalArgumentException("invalid rating (" + rating + ")");
+
+        return RATING_NAMES[rating];
+    }
+
+    /**
+     * Find a rating by name
+     *
+     * @param name the name, e.g. "EASY" (any case)
+     * @return the rating
+     */
+    public static int ratingFromName(String name) {
+        for (int rating=0; rating<RATING_NAMES.length; rating++)
+            if (RATING_NAMES[rating].equalsIgnoreCase(name))
+                return rating;
+
+        throw new IllegalArgumentException("invalid rating name (" + name + ")");
+    }
+
+    /**
+     * String representation of the difficulty (useful for debugging)
+     *
+     * @return the String representation
+     */
+    @Override
+    public String toString() {
+        StringBuffer buf = new StringBuffer();
+
+        buf.append("Difficulty(" + ratingName(rating) + ",lineSolvable=" + lineSolvable + ",rounds=" + rounds
+                   + ",probes=" + probes + ",nodes=" + searchNodes + ",depth=" + maxDepth + ")");
+
+        return buf.toString();
+    }
+
+    /**
+     * Rate every .non file in a directory, in parallel, and write the ratings to the puzzle index
+     * in that directory
+     *
+     * @param args dir
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("usage: Difficulty dir");
+
+            return;
+        }
+
+        File   dir   = new File(args[0]);
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".non"));
+
+        if (files == null) {
+            System.out.println(dir + " is not a directory");
+
+            return;
+        }
+
+        PuzzleIndex index = new PuzzleIndex();
+        long        start = System.nanoTime();
+
+        Arrays.stream(files).parallel().forEach(file -> {
+            try (Scanner scnr = new Scanner(file)) {
+                Dawgram ng     = new Dawgram(scnr);
+                String  reason = Prefilter.check(ng);
+
+                if (reason == null)
+                    index.add(file.getName(), new Difficulty(ng));
+                else
+                    System.out.println(file.getName() + ": rejected, " + reason);
+            } catch (FileNotFoundException | DawgramException e) {
+                System.out.println(file.getName() + ": " + e.getMessage());
+            }
+        });
+
+        index.save(new File(dir, PuzzleIndex.INDEX_FILE));
+
+        System.out.printf("%d puzzles rated in %.2fs%n", index.size(), (System.nanoTime() - start) / 1e9);
+
+        for (int rating=0; rating<RATING_NAMES.length; rating++)
+            System.out.println("   " + ratingName(rating) + ": " + index.count(rating));
+    }
+
+    public static final int NOT_RATED = 0;
+    public static final int EASY      = 1;
+    public static final int MEDIUM    = 2;
+    public static final int HARD      = 3;
+    public static final int FIENDISH  = 4;
+
+    public static final int  EASY_ROUNDS      = 3;      // most propagation rounds for EASY
+    public static final long MAX_SEARCH_NODES = 100000; // search nodes before giving up
+
+    private static final String[] RATING_NAMES = { "NOT_RATED", "EASY", "MEDIUM", "HARD", "FIENDISH" };
+
+    private int     rating       = NOT_RATED;
+    private boolean lineSolvable = false;
+    private long    rounds       = 0;
+    private long    probes       = 0;
+    private long    searchNodes  = 0;
+    private int     maxDepth     = 0;
+}
@@ -0,0 +1,251 @@
+/**
+* A generator of fresh Dawgram puzzles, each with a unique solution.
+*
+* A candidate is a random goal grid in which each cell is FULL with a given probability (the
+* density).  Its row and column patterns are read off the goal, and the candidate is kept only if
+* the Solver proves it has exactly one solution; otherwise a new candidate is drawn.  A candidate
+* whose proof needs too much search is dropped as well, which keeps the rate steady and the puzzles
+* humanly solvable.  Candidates
+* for different puzzles are generated and checked in parallel on the common fork-join pool, and
+* each puzzle is handed on (as .non text, goal included) as soon as it is found.
+*
+* Puzzle i of a given seed is always the same, whichever thread finds it.  Goals with an empty row
+* or column are redrawn, as a .non pattern must have at least one full cell.  A puzzle for which
+* MAX_CANDIDATES are drawn without a unique one (e.g. when the density makes empty lines near
+* certain) fails with a DawgramException rather than searching forever.
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+
+public class Generator {
+    /**
+     * Constructor
+     *
+     * @param numRows the number of rows
+     * @param numCols the number of columns
+     * @param density the probability of each goal cell being FULL (0 < density < 1)
+     * @param seed the random seed
+     */
+    public Generator(int numRows, int numCols, double density, long seed) {
+        if (numRows < Dawgram.MIN_SIZE)
+            throw new IllegalArgumentException("numRows cannot be less than " + Dawgram.MIN_SIZE);
+
+        if (numCols < Dawgram.MIN_SIZE)
+            throw new IllegalArgumentException("numCols cannot be less than " + Dawgram.MIN_SIZE);
+
+        if (!(density > 0.0) || !(density < 1.0))
+            throw new IllegalArgumentException("density must be > 0 and < 1 (" + density + ")");
+
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.density = density;
+        this.seed    = seed;
+    }
+
+    /**
+     * Generate puzzles in parallel, handing each one on as soon as it is found (so not
+     * necessarily in order).  The sink is called by one thread at a time.
+     *
+     * @param count the number of puzzles
+     * @param sink receives the .non text of each puzzle
+     */
+    public void generate(int count, Consumer<String> sink) {
+        if (count < 0)
+            throw new IllegalArgumentException("count must be >= 0 (" + count + ")");
+
+        if (sink == null)
+            throw new IllegalArgumentException("sink cannot be null");
+
+        IntStream.range(0, count).parallel().forEach(i -> {
+            String non = generate(i);
+
+            synchronized (sink) {
+                sink.accept(non);
+            }
+        });
+    }
+
+    /**
+     * Generate a single puzzle
+     *
+     * @param i the puzzle number
+     * @return the .non text of the puzzle
+     * @throws DawgramException if no unique puzzle is found in MAX_CANDIDATES candidates
+     */
+    public String generate(int i) {
+        if (i < 0)
+            throw new IllegalArgumentException("i must be >= 0 (" + i + ")");
+
+        SplittableRandom rnd  = new SplittableRandom(seed*GOLDEN_GAMMA + i);
+        byte[]           goal = new byte[numRows*numCols];
+
+        for (int n=0; n<MAX_CANDIDATES; n++) {
+            candidates.incrementAndGet();
+
+            for (int c=0; c<goal.length; c++)
+                goal[c] = (rnd.nextDouble() < density) ? (byte) Dawgram.FULL : (byte) Dawgram.EMPTY;
+
+            int[][] rowNums = new int[numRows][];
+            int[][] colNums = new int[numCols][];
+            boolean blank   = false;
+
+            for (int row=0; (row<numRows) && !blank; row++) {
+                rowNums[row] = lineNums(goal, row*numCols, 1, numCols);
+                blank        = rowNums[row] == null;
+            }
+
+            for (int col=0; (col<numCols) && !blank; col++) {
+                colNums[col] = lineNums(goal, col, numCols, numRows);
+                blank        = colNums[col] == null;
+            }
+
+            if (blank)
+                continue;
+
+            if (new Solver(rowNums, colNums, BitLineSolver::new).countSolutions(2, MAX_SEARCH_NODES) == 1)
+                return toNon(i, rowNums, colNums, goal);
+        }
+
+        throw new DawgramException("no unique " + numRows + "x" + numCols + " puzzle of density " + density
+                                   + " found in " + MAX_CANDIDATES + " candidates");
+    }
+
+    /**
+     * Retrieve the number of candidate goals drawn so far (unique or not)
+     *
+     * @return the number of candidates
+     */
+    public long getCandidates() {
+        return candidates.get();
+    }
+
+    /**
+     * Read the pattern of contiguous full cells off a line of the goal
+     *
+     * @param goal the goal cell states, row-major
+     * @param start the index of the first cell of the line
+     * @param step the distance between cells of the line
+     * @param len the line length
+     * @return the pattern, or null if the line has no full cells
+     */
+    private static int[] lineNums(byte[] goal, int start, int step, int len) {
+        int[] nums  = new int[(len+1)/2];
+        int   count = 0;
+        int   run   = 0;
+
+        for (int i=0; i<=len; i++) {
+            if ((i < len) && (goal[start+i*step] == Dawgram.FULL)) {
+                run++;
+            } else if (run > 0) {
+                nums[count++] = run;
+                run           = 0;
+            }
+        }
+
+        return (count == 0) ? null : Arrays.copyOf(nums, count);
+    }
+
+    /**
+     * Write a puzzle in .non file form
+     *
+     * @param i the puzzle number
+     * @param rowNums the row patterns
+     * @param colNums the column patterns
+     * @param goal the goal cell states, row-major
+     * @return the .non text
+     */
+    private String toNon(int i, int[][] rowNums, int[][] colNums, byte[] goal) {
+        StringBuffer sb = new StringBuffer();
+
+        sb.append("catalogue \"dawgram generator " + numRows + "x" + numCols + " seed " + seed + " #" + i + "\"\n");
+        sb.append("\n");
+        sb.append("width "  + numCols + "\n");
+        sb.append("height " + numRows + "\n");
+        sb.append("\n");
+        sb.append("rows\n");
+
+        for (int[] nums : rowNums)
+            sb.append(new NGPattern(nums, numCols).toStringForNon() + "\n");
+
+        sb.append("\n");
+        sb.append("columns\n");
+
+        for (int[] nums : colNums)
+            sb.append(new NGPattern(nums, numRows).toStringForNon() + "\n");
+
+        sb.append("\n");
+        sb.append("goal \"");
+
+        for (byte state : goal)
+            sb.append(state);
+
+        sb.append("\"\n");
+
+        return sb.toString();
+    }
+
+    /**
+     * Generate puzzles into a directory, one .non file each
+     *
+     * @param args numRows numCols density count dir [seed]
+     */
+    public static void main(String[] args) {
+        if ((args.length < 5) || (args.length > 6)) {
+            System.out.println("usage: Generator numRows numCols density count dir [seed]");
+
+            return;
+        }
+
+        Generator     gen   = new Generator(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                                            Double.parseDouble(args[2]),
+                                            (args.length == 6) ? Long.parseLong(args[5]) : System.nanoTime());
+        int           count = Integer.parseInt(args[3]);
+        File          dir   = new File(args[4]);
+        AtomicInteger done  = new AtomicInteger();
+        long          start = System.nanoTime();
+
+        dir.mkdirs();
+
+        gen.generate(count, non -> {
+            File file = new File(dir, String.format("puzzle-%05d.non", done.getAndIncrement()));
+
+            try (FileWriter writer = new FileWriter(file)) {
+                writer.write(non);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        double secs = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d unique puzzles from %d candidates in %.2fs (%.1f/s)%n",
+                          count, gen.getCandidates(), secs, count/secs);
+    }
+
+    public static final int   MAX_CANDIDATES   = 100000; // per puzzle, before giving up
+    private static final long MAX_SEARCH_NODES = 1000; // candidates needing more search are dropped
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L; // spreads the seeds of puzzle numbers
+
+    private int          numRows    = -1;
+    private int          numCols    = -1;
+    private double       density    = 0.5;
+    private long         seed       = 0;
+    private AtomicLong   candidates = new AtomicLong();
+}
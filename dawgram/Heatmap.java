@@ -0,0 +1,223 @@
+/**
+* A heatmap of a Dawgram puzzle: for each cell, an estimate of the probability it is FULL over the
+* solutions consistent with the current cell states.
+*
+* The estimate comes from a pool of sampled solutions, each found by randomized search (see
+* Solver.sample) from the propagated current state; samples are drawn in parallel, each
+* propagating sequentially (nesting parallel propagation inside them would only contend for the
+* same pool).  The heatmap
+* is updated incrementally: after moves, update() keeps every sample that still agrees with the
+* known cells (a word-wide PackedGrid scan per sample) and only draws new samples to replace the
+* ones that no longer do.
+*
+* Each search gives up after a budget of nodes (smaller for larger grids), and an update stops
+* drawing once it has run for MAX_UPDATE_NANOS, so on hard puzzles it may return with fewer
+* samples than wanted.  If the current cell states contradict the patterns (or every search
+* gives up) there are no samples, and no probabilities.
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+
+public class Heatmap {
+    /**
+     * Constructor, for the default number of samples (call update() to draw them)
+     *
+     * @param ng the dawgram puzzle
+     */
+    public Heatmap(Dawgram ng) {
+        this(ng, DEFAULT_SAMPLES, System.nanoTime());
+    }
+
+    /**
+     * Constructor (call update() to draw the samples)
+     *
+     * @param ng the dawgram puzzle
+     * @param numSamples the number of solutions to sample
+     * @param seed the random seed
+     */
+    public Heatmap(Dawgram ng, int numSamples, long seed) {
+        if (ng == null)
+            throw new IllegalArgumentException("ng cannot be null");
+
+        if (numSamples <= 0)
+            throw new IllegalArgumentException("numSamples must be > 0 (" + numSamples + ")");
+
+        this.ng         = ng;
+        this.numSamples = numSamples;
+        this.seed       = seed;
+        this.fullCounts = new int[ng.getNumRows()*ng.getNumCols()];
+    }
+
+    /**
+     * Bring the heatmap up to date with the current cell states: drop the samples that disagree
+     * with a known cell, then draw new samples (in parallel) to make up the numbers
+     *
+     * @return the number of new samples drawn
+     */
+    public synchronized int update() {
+        PackedGrid grid = ng.getGrid();
+
+        for (int i=samples.size()-1; i>=0; i--) {
+            if (grid.countWrong(samples.get(i)) != 0) {
+                count(samples.get(i), -1);
+                samples.remove(i);
+            }
+        }
+
+        int wanted = numSamples - samples.size();
+
+        if (wanted == 0)
+            return 0;
+
+        Solver base = new Solver(ng, BitLineSolver::new);
+
+        if (!base.propagate())
+            return 0;
+
+        long              first    = drawn;
+        long              maxNodes = Math.max(MIN_SEARCH_NODES, MAX_SEARCH_WORK / fullCounts.length);
+        long              deadline = System.nanoTime() + MAX_UPDATE_NANOS;
+        List<PackedGrid>  fresh    = IntStream.range(0, wanted).parallel()
+                                              .mapToObj(i -> sample(base, first+i, maxNodes, deadline))
+                                           .filter(Objects::nonNull)
+                                           .toList();
+
+        drawn += wanted;
+
+        for (PackedGrid sample : fresh) {
+            samples.add(sample);
+            count(sample, +1);
+        }
+
+        return fresh.size();
+    }
+
+    /**
+     * Draw one sample
+     *
+     * @param base the propagated solver to sample from
+     * @param n the sample number (seeds its random number generator)
+     * @param maxNodes the most search nodes to visit
+     * @param deadline the System.nanoTime() after which no more samples are started
+     * @return the sampled solution, or null if the search gave up (or never started)
+     */
+    private PackedGrid sample(Solver base, long n, long maxNodes, long deadline) {
+        if (System.nanoTime() - deadline >= 0)
+            return null;
+
+        Solver solver = base.copy();
+
+        // the samples already run in parallel, so each propagates sequentially
+        solver.setParallelThreshold(Integer.MAX_VALUE);
+
+        if (!solver.sample(new SplittableRandom(seed + n*GOLDEN_GAMMA), maxNodes))
+            return null;
+
+        return solver.getSolution();
+    }
+
+    /**
+     * Add a sample to (or remove one from) the FULL counts
+     *
+     * @param sample the sampled solution
+     * @param delta +1 to add, -1 to remove
+     */
+    private void count(PackedGrid sample, int delta) {
+        byte[] cells = sample.toArray();
+
+        for (int i=0; i<fullCounts.length; i++)
+            if (cells[i] == Dawgram.FULL)
+                fullCounts[i] += delta;
+    }
+
+    /**
+     * Retrieve the estimated probability that a cell is FULL
+     *
+     * @param row the cell row
+     * @param col the cell column
+     * @return the probability (0 to 1), or NaN if there are no samples
+     */
+    public synchronized double getProbability(int row, int col) {
+        if ((row < 0) || (row >= ng.getNumRows()))
+            throw new IllegalArgumentException("row invalid, must be 0 <= row < " + ng.getNumRows());
+
+        if ((col < 0) || (col >= ng.getNumCols()))
+            throw new IllegalArgumentException("col invalid, must be 0 <= col < " + ng.getNumCols());
+
+        if (samples.isEmpty())
+            return Double.NaN;
+
+        return (double) fullCounts[row*ng.getNumCols()+col] / samples.size();
+    }
+
+    /**
+     * Retrieve the number of samples the estimates are based on
+     *
+     * @return the number of samples
+     */
+    public synchronized int getNumSamples() {
+        return samples.size();
+    }
+
+    /**
+     * Find the UNKNOWN cell whose state the samples are surest of
+     *
+     * @return a hint (not forced, so with the estimated probability of its state), or null if
+     *         there are no samples or no UNKNOWN cells
+     */
+    public synchronized Hint likeliest() {
+        if (samples.isEmpty())
+            return null;
+
+        int    numCols = ng.getNumCols();
+        int    best    = -1;
+        double sure    = -1.0;
+
+        for (int i=0; i<fullCounts.length; i++) {
+            if (ng.getState(i/numCols, i%numCols) != Dawgram.UNKNOWN)
+                continue;
+
+            double p = (double) fullCounts[i] / samples.size();
+
+            if (Math.abs(p - 0.5) > sure) {
+                sure = Math.abs(p - 0.5);
+                best = i;
+            }
+        }
+
+        if (best < 0)
+            return null;
+
+        double p = (double) fullCounts[best] / samples.size();
+
+        if (p >= 0.5)
+            return new Hint(best/numCols, best%numCols, Dawgram.FULL, p);
+        else
+            return new Hint(best/numCols, best%numCols, Dawgram.EMPTY, 1.0-p);
+    }
+
+    public static final int  DEFAULT_SAMPLES  = 64;
+    private static final long MAX_SEARCH_WORK  = 10000L*20*20; // search nodes times cells, per sample
+    private static final long MIN_SEARCH_NODES = 100;   // per sample, however large the grid
+    private static final long MAX_UPDATE_NANOS = 2000000000L; // no samples started after this
+    private static final long GOLDEN_GAMMA     = 0x9E3779B97F4A7C15L; // spreads the sample seeds
+
+    private Dawgram          ng         = null;
+    private int              numSamples = DEFAULT_SAMPLES;
+    private long             seed       = 0;
+    private long             drawn      = 0;                 // samples drawn so far (for seeding)
+    private List<PackedGrid> samples    = new ArrayList<>(); // the sampled solutions
+    private int[]            fullCounts = null;              // per cell, the samples with it FULL
+}
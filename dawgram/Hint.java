@@ -0,0 +1,104 @@
+/**
+* A hint in a Dawgram puzzle: a cell whose state is forced by a row or column, or failing that a
+* cell whose state is likely (estimated from a Heatmap).
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+
+public class Hint extends Assign {
+  /**
+   * Constructor
+   *
+   * @param row the row of the forced cell
+   * @param col the column of the forced cell
+   * @param state the forced state (EMPTY or FULL)
+   * @param isRow true if the row forces the cell, false if the column does
+   */
+  public Hint(int row, int col, int state, boolean isRow) {
+    super(row, col, state);
+
+    if (state == Dawgram.UNKNOWN)
+      throw new IllegalArgumentException("invalid state for a hint (" + state + ")");
+
+    this.isRow = isRow;
+  }
+
+  /**
+   * Constructor for a hint that is likely, but not forced
+   *
+   * @param row the row of the cell
+   * @param col the column of the cell
+   * @param state the likely state (EMPTY or FULL)
+   * @param probability the estimated probability of the state (0 to 1)
+   */
+  public Hint(int row, int col, int state, double probability) {
+    this(row, col, state, true);
+
+    if (!(probability >= 0.0) || !(probability <= 1.0))
+      throw new IllegalArgumentException("probability must be 0 to 1 (" + probability + ")");
+
+    this.forced      = false;
+    this.probability = probability;
+  }
+
+  /**
+   * Is the cell's state forced (rather than just likely)?
+   *
+   * @return true if forced by its row or column, otherwise false
+   */
+  public boolean isForced() {
+    return forced;
+  }
+
+  /**
+   * Retrieve the probability of the hinted state
+   *
+   * @return 1 if forced, otherwise the estimated probability
+   */
+  public double getProbability() {
+    return probability;
+  }
+
+  /**
+   * Is the cell forced by its row? (only meaningful if isForced())
+   *
+   * @return true if the row forces the cell, false if the column does
+   */
+  public boolean isRow() {
+    return isRow;
+  }
+
+  /**
+   * Retrieve the number of the row or column that forces the cell
+   *
+   * @return the row number if isRow(), otherwise the column number
+   */
+  public int getLine() {
+    return isRow ? getRow() : getCol();
+  }
+
+  /**
+   * String representation of the hint (useful for debugging)
+   *
+   * @return the String representation
+   */
+  @Override
+  public String toString() {
+    StringBuffer buf = new StringBuffer();
+
+    buf.append("Hint(" + getRow() + "," + getCol() + "," + getState() + ","
+               + (forced ? (isRow ? "row" : "col") : ("p=" + probability)) + ")");
+
+    return buf.toString();
+  }
+
+  private boolean isRow       = true;
+  private boolean forced      = true;
+  private double  probability = 1.0;
+}
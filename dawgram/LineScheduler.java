@@ -0,0 +1,171 @@
+/**
+* A priority queue of dirty lines (rows and columns) for Dawgram propagation, ordered by an estimate
+* of how many cells solving the line will deduce.  Lines are identified by an index: rows are
+* 0..numRows-1 and columns are numRows..numRows+numCols-1.
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+
+public class LineScheduler {
+    /**
+     * Constructor
+     *
+     * @param numLines the total number of lines (rows plus columns)
+     */
+    public LineScheduler(int numLines) {
+        if (numLines <= 0)
+            throw new IllegalArgumentException("numLines must be > 0 (" + numLines + ")");
+
+        heap = new int[numLines];
+        pos  = new int[numLines];
+        gain = new int[numLines];
+
+        for (int i=0; i<numLines; i++)
+            pos[i] = -1;
+    }
+
+    /**
+     * Add gain to a line, queueing it if it is not already queued
+     *
+     * @param line the line index
+     * @param delta the estimated extra gain (must be positive)
+     */
+    public void add(int line, int delta) {
+        if ((line < 0) || (line >= pos.length))
+            throw new IllegalArgumentException("line invalid, must be 0 <= line < " + pos.length);
+
+        if (delta <= 0)
+            throw new IllegalArgumentException("delta must be > 0 (" + delta + ")");
+
+        if (pos[line] < 0) {
+            gain[line]  = delta;
+            heap[size]  = line;
+            pos[line]   = size;
+            siftUp(size++);
+        } else {
+            gain[line] += delta;
+            siftUp(pos[line]);
+        }
+    }
+
+    /**
+     * Remove and return the queued line with the highest estimated gain
+     *
+     * @return the line index, or -1 if no line is queued
+     */
+    public int poll() {
+        if (size == 0)
+            return -1;
+
+        int top = heap[0];
+
+        pos[top] = -1;
+        size--;
+
+        if (size > 0) {
+            heap[0]      = heap[size];
+            pos[heap[0]] = 0;
+            siftDown(0);
+        }
+
+        return top;
+    }
+
+    /**
+     * Is a given line queued?
+     *
+     * @param line the line index
+     * @return true if the line is queued, otherwise false
+     */
+    public boolean contains(int line) {
+        return pos[line] >= 0;
+    }
+
+    /**
+     * Is the queue empty?
+     *
+     * @return true if no lines are queued, otherwise false
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Retrieve the number of queued lines
+     *
+     * @return the number of queued lines
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove all the queued lines
+     */
+    public void clear() {
+        for (int i=0; i<size; i++)
+            pos[heap[i]] = -1;
+
+        size = 0;
+    }
+
+    /**
+     * Does line a come before line b? (higher gain first, then lower index)
+     */
+    private boolean before(int a, int b) {
+        return (gain[a] > gain[b]) || ((gain[a] == gain[b]) && (a < b));
+    }
+
+    private void siftUp(int i) {
+        int line = heap[i];
+
+        while (i > 0) {
+            int parent = (i-1) >>> 1;
+
+            if (!before(line, heap[parent]))
+                break;
+
+            heap[i]      = heap[parent];
+            pos[heap[i]] = i;
+            i            = parent;
+        }
+
+        heap[i]   = line;
+        pos[line] = i;
+    }
+
+    private void siftDown(int i) {
+        int line = heap[i];
+
+        while (true) {
+            int child = 2*i + 1;
+
+            if (child >= size)
+                break;
+
+            if ((child+1 < size) && before(heap[child+1], heap[child]))
+                child++;
+
+            if (!before(heap[child], line))
+                break;
+
+            heap[i]      = heap[child];
+            pos[heap[i]] = i;
+            i            = child;
+        }
+
+        heap[i]   = line;
+        pos[line] = i;
+    }
+
+    private int[] heap = null; // binary max-heap of line indices
+    private int[] pos  = null; // position of each line in the heap (-1 if not queued)
+    private int[] gain = null; // estimated gain of each queued line
+    private int   size = 0;
+}
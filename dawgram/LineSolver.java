@@ -0,0 +1,24 @@
+/**
+* A line solver for a single row or column of a Dawgram puzzle.
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+
+public interface LineSolver {
+    /**
+     * Deduce as many cells of a line as possible from its pattern of contiguous full cells.
+     * Every UNKNOWN cell that is FULL (or EMPTY) in all arrangements consistent with the line is set
+     * in place; cells that are already known are never changed.
+     *
+     * @param nums the pattern of contiguous full cells for the line
+     * @param line the cell states of the line (FULL, EMPTY or UNKNOWN), updated in place
+     * @return true if the line is consistent with the pattern, false on a contradiction
+     */
+    boolean solve(int[] nums, byte[] line);
+}
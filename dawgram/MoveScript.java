@@ -0,0 +1,253 @@
+/**
+* Plays a script of moves onto a Dawgram puzzle without prompting, e.g. to replay a game for
+* regression checks or to load test the puzzle.
+*
+* A script has one command per line, with the commands of the console menu (in any case) and
+* rows and columns as DawgramUI shows them (base 62, 0-9A-Za-z, any number of digits):
+*
+*     M <row> <col> <state>            a move, the state being '@', 'X' or '.'
+*     R <row> <first> <last> <state>   a move across the columns first..last of a row
+*     C <col> <first> <last> <state>   a move down the rows first..last of a column
+*     U                                undo the last move
+*     Clear                            restart the puzzle
+*
+* Blank lines, and lines starting with '#', are ignored.  Moves are collected and applied in
+* batches (see Dawgram.setStates), so observers hear of each batch once, and lines are split and
+* parsed without allocating anything beyond the line itself.
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+
+
+public class MoveScript {
+    /**
+     * Constructor
+     *
+     * @param puzzle the puzzle to play the moves onto
+     */
+    public MoveScript(Dawgram puzzle) {
+        if (puzzle == null)
+            throw new IllegalArgumentException("puzzle cannot be null");
+
+        this.puzzle = puzzle;
+    }
+
+    /**
+     * Play a whole script (adding to the counts and time of any played before)
+     *
+     * @param in the script (read to the end, but not closed)
+     * @throws IOException if the script cannot be read
+     * @throws DawgramException if a line is not a valid command (the moves before it are played)
+     */
+    public void play(Reader in) throws IOException {
+        if (in == null)
+            throw new IllegalArgumentException("in cannot be null");
+
+        BufferedReader reader = new BufferedReader(in, READ_BUFFER);
+        long           start  = System.nanoTime();
+        String         line;
+
+        try {
+            while ((line = reader.readLine()) != null) {
+                numLines++;
+                playLine(line);
+            }
+        } finally {
+            flush();
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Play one line of a script
+     */
+    private void playLine(String line) {
+        int numTokens = split(line);
+
+        if ((numTokens == 0) || (line.charAt(starts[0]) == '#'))
+            return;
+
+        if (isToken(line, 0, "M") && (numTokens == 4)) {
+            move(line, num(line, 1, puzzle.getNumRows()), num(line, 2, puzzle.getNumCols()), state(line, 3));
+        } else if (isToken(line, 0, "R") && (numTokens == 5)) {
+            int row   = num(line, 1, puzzle.getNumRows());
+            int first = num(line, 2, puzzle.getNumCols());
+            int last  = num(line, 3, puzzle.getNumCols());
+            int state = state(line, 4);
+
+            for (int col=Math.min(first, last); col<=Math.max(first, last); col++)
+                move(line, row, col, state);
+        } else if (isToken(line, 0, "C") && (numTokens == 5)) {
+            int col   = num(line, 1, puzzle.getNumCols());
+            int first = num(line, 2, puzzle.getNumRows());
+            int last  = num(line, 3, puzzle.getNumRows());
+            int state = state(line, 4);
+
+            for (int row=Math.min(first, last); row<=Math.max(first, last); row++)
+                move(line, row, col, state);
+        } else if (isToken(line, 0, "U") && (numTokens == 1)) {
+            flush();
+            puzzle.undo();
+            numUndos++;
+        } else if (isToken(line, 0, "Clear") && (numTokens == 1)) {
+            flush();
+            puzzle.clear();
+        } else {
+            throw error("unknown command");
+        }
+    }
+
+    /**
+     * Add a move to the batch, applying the batch once full
+     */
+    private void move(String line, int row, int col, int state) {
+        batch.add(new Assign(row, col, state));
+        numMoves++;
+
+        if (batch.size() >= BATCH_SIZE)
+            flush();
+    }
+
+    /**
+     * Apply the moves batched so far
+     */
+    private void flush() {
+        if (!batch.isEmpty()) {
+            puzzle.setStates(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Split a line into tokens separated by spaces or tabs, noting where each starts and ends
+     *
+     * @return the number of tokens (extra tokens past MAX_TOKENS are counted but not noted)
+     */
+    private int split(String line) {
+        int numTokens = 0;
+        int i         = 0;
+        int len       = line.length();
+
+        while (true) {
+            while ((i < len) && isSpace(line.charAt(i)))
+                i++;
+
+            if (i == len)
+                return numTokens;
+
+            int start = i;
+
+            while ((i < len) && !isSpace(line.charAt(i)))
+                i++;
+
+            if (numTokens < MAX_TOKENS) {
+                starts[numTokens] = start;
+                ends[numTokens]   = i;
+            }
+
+            numTokens++;
+        }
+    }
+
+    private static boolean isSpace(char c) {
+        return (c == ' ') || (c == '\t');
+    }
+
+    /**
+     * Is a token a given word (in any case)?
+     */
+    private boolean isToken(String line, int token, String word) {
+        return ((ends[token] - starts[token]) == word.length())
+            && line.regionMatches(true, starts[token], word, 0, word.length());
+    }
+
+    /**
+     * Parse a row or column token
+     */
+    private int num(String line, int token, int size) {
+        int num = DawgramUI.numFromString(line, starts[token], ends[token]);
+
+        if ((num < 0) || (num >= size))
+            throw error("invalid row or col (" + line.substring(starts[token], ends[token]) + ")");
+
+        return num;
+    }
+
+    /**
+     * Parse a state token
+     */
+    private int state(String line, int token) {
+        char c = line.charAt(starts[token]);
+
+        if (((ends[token] - starts[token]) != 1) || !DawgramUI.isValidStateChar(c))
+            throw error("invalid state (" + line.substring(starts[token], ends[token]) + ")");
+
+        return DawgramUI.stateFromChar(c);
+    }
+
+    /**
+     * An error in the current line
+     */
+    private DawgramException error(String msg) {
+        return new DawgramException("script line " + numLines + ": " + msg);
+    }
+
+    /**
+     * Retrieve the number of lines read
+     *
+     * @return the number of lines
+     */
+    public long getNumLines() {
+        return numLines;
+    }
+
+    /**
+     * Retrieve the number of cells set (a row or column move counts each of its cells)
+     *
+     * @return the number of moves
+     */
+    public long getNumMoves() {
+        return numMoves;
+    }
+
+    /**
+     * Retrieve the number of undo commands
+     *
+     * @return the number of undos
+     */
+    public long getNumUndos() {
+        return numUndos;
+    }
+
+    /**
+     * Retrieve the time spent playing scripts, reading included
+     *
+     * @return the time in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    public static final int  BATCH_SIZE  = 8192;    // moves applied (and notified) at once
+    private static final int MAX_TOKENS  = 5;
+    private static final int READ_BUFFER = 1 << 16;
+
+    private Dawgram           puzzle   = null;
+    private ArrayList<Assign> batch    = new ArrayList<>();
+    private int[]             starts   = new int[MAX_TOKENS];   // the tokens of the current line
+    private int[]             ends     = new int[MAX_TOKENS];
+    private long              numLines = 0;
+    private long              numMoves = 0;
+    private long              numUndos = 0;
+    private long              nanos    = 0;
+}
@@ -0,0 +1,514 @@
+/**
+* The packed cell states of a Dawgram puzzle: one byte per cell (EMPTY, FULL or UNKNOWN), row-major.
+*
+* The bytes are held in a ByteBuffer, either on the heap (the default), in direct (off-heap) memory,
+* or memory-mapped from a file, so giant grids and many live puzzles need not burden the garbage
+* collector.  Off-heap grids should be closed when finished with: closing flushes a mapped grid,
+* closes its file and drops the grid's reference to the buffer, after which any access throws an
+* IllegalStateException.  Java cannot free a direct or mapped buffer on demand, so its memory (and
+* the mapping) is only released when the garbage collector reclaims the buffer.
+*
+* Whole-grid scans (counting states, comparing with a goal, diffing snapshots) read the cells eight
+* at a time as longs and work on all eight bytes at once ("SIMD within a register"), finishing any
+* tail of fewer than eight cells one cell at a time.  This needs no extra modules and so works on
+* any JVM.
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+public class PackedGrid implements AutoCloseable {
+    /**
+     * Constructor for a grid on the heap, all the cells are set to UNKNOWN
+     *
+     * @param numRows the number of rows
+     * @param numCols the number of columns
+     */
+    public PackedGrid(int numRows, int numCols) {
+        this(numRows, numCols, ByteBuffer.allocate(checkSize(numRows, numCols)), null);
+
+        fill(Dawgram.UNKNOWN);
+    }
+
+    /**
+     * Constructor around existing storage
+     *
+     * @param numRows the number of rows
+     * @param numCols the number of columns
+     * @param cells the storage (numRows*numCols bytes)
+     * @param channel the file channel the storage is mapped from (or null)
+     */
+    private PackedGrid(int numRows, int numCols, ByteBuffer cells, FileChannel channel) {
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.size    = numRows*numCols;
+        this.cells   = cells.order(ByteOrder.LITTLE_ENDIAN);
+        this.channel = channel;
+    }
+
+    /**
+     * Create a grid in direct (off-heap) memory, all the cells are set to UNKNOWN
+     *
+     * @param numRows the number of rows
+     * @param numCols the number of columns
+     * @return the grid
+     */
+    public static PackedGrid allocateDirect(int numRows, int numCols) {
+        PackedGrid grid = new PackedGrid(numRows, numCols, ByteBuffer.allocateDirect(checkSize(numRows, numCols)), null);
+
+        grid.fill(Dawgram.UNKNOWN);
+
+        return grid;
+    }
+
+    /**
+     * Create a grid memory-mapped from a file.  A new (or wrongly sized) file is sized to the grid
+     * with all the cells UNKNOWN; an existing file of the right size keeps its cell states.
+     *
+     * @param file the file to map
+     * @param numRows the number of rows
+     * @param numCols the number of columns
+     * @return the grid
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public static PackedGrid map(Path file, int numRows, int numCols) throws IOException {
+        if (file == null)
+            throw new IllegalArgumentException("file cannot be null");
+
+        int         size    = checkSize(numRows, numCols);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            boolean fresh = channel.size() != size;
+
+            if (fresh)
+                channel.truncate(0);
+
+            PackedGrid grid = new PackedGrid(numRows, numCols, channel.map(FileChannel.MapMode.READ_WRITE, 0, size), channel);
+
+            if (fresh)
+                grid.fill(Dawgram.UNKNOWN);
+
+            return grid;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieve the number of rows
+     *
+     * @return the number of rows
+     */
+    public int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * Retrieve the number of columns
+     *
+     * @return the number of columns
+     */
+    public int getNumCols() {
+        return numCols;
+    }
+
+    /**
+     * Retrieve the state of an individual cell (no range checks)
+     *
+     * @param row the cell row
+     * @param col the cell column
+     * @return the cell state
+     */
+    public int get(int row, int col) {
+        checkOpen();
+
+        return cells.get(row*numCols+col);
+    }
+
+    /**
+     * Set the state of an individual cell (no range or state checks)
+     *
+     * @param row the cell row
+     * @param col the cell column
+     * @param state the new state
+     */
+    public void set(int row, int col, int state) {
+        checkOpen();
+
+        cells.put(row*numCols+col, (byte) state);
+    }
+
+    /**
+     * Copy the cell states of a row into an array
+     *
+     * @param row the desired row
+     * @param dst the destination (at least numCols long)
+     */
+    public void getRow(int row, byte[] dst) {
+        checkOpen();
+
+        cells.get(row*numCols, dst, 0, numCols);
+    }
+
+    /**
+     * Copy the cell states of a column into an array
+     *
+     * @param col the desired column
+     * @param dst the destination (at least numRows long)
+     */
+    public void getCol(int col, byte[] dst) {
+        checkOpen();
+
+        for (int row=0; row<numRows; row++)
+            dst[row] = cells.get(row*numCols+col);
+    }
+
+    /**
+     * Set the cell states of a row from an array
+     *
+     * @param row the desired row
+     * @param src the source (at least numCols long)
+     */
+    public void setRow(int row, byte[] src) {
+        checkOpen();
+
+        cells.put(row*numCols, src, 0, numCols);
+    }
+
+    /**
+     * Set the cell states of a column from an array
+     *
+     * @param col the desired column
+     * @param src the source (at least numRows long)
+     */
+    public void setCol(int col, byte[] src) {
+        checkOpen();
+
+        for (int row=0; row<numRows; row++)
+            cells.put(row*numCols+col, src[row]);
+    }
+
+    /**
+     * Set every cell to the same state
+     *
+     * @param state the new state
+     */
+    public void fill(int state) {
+        checkOpen();
+
+        long word = (state & 0xFFL) * LOW_BITS;
+        int  i    = 0;
+
+        for (; i+8<=size; i+=8)
+            cells.putLong(i, word);
+
+        for (; i<size; i++)
+            cells.put(i, (byte) state);
+    }
+
+    /**
+     * Count the cells in a given state
+     *
+     * @param state the state (FULL, EMPTY or UNKNOWN)
+     * @return the number of cells in that state
+     */
+    public int count(int state) {
+        if (!Cell.isValidState(state))
+            throw new IllegalArgumentException("invalid state (" + state + ")");
+
+        checkOpen();
+
+        ByteBuffer a    = cells;
+        int        full = 0;
+        int        unkn = 0;
+        int        i    = 0;
+
+        // per byte: FULL (1) is the only state with bit 0 set, UNKNOWN (2) the only one with bit 1
+        for (; i+8<=size; i+=8) {
+            long x = a.getLong(i);
+
+            full += Long.bitCount(x & LOW_BITS);
+            unkn += Long.bitCount((x >>> 1) & LOW_BITS);
+        }
+
+        for (; i<size; i++) {
+            if (a.get(i) == Dawgram.FULL)
+                full++;
+            else if (a.get(i) == Dawgram.UNKNOWN)
+                unkn++;
+        }
+
+        if (state == Dawgram.FULL)
+            return full;
+        else if (state == Dawgram.UNKNOWN)
+            return unkn;
+        else
+            return size - full - unkn;
+    }
+
+    /**
+     * Count the cells whose FULL-ness differs from another grid of the same size, e.g. a goal
+     * (UNKNOWN and EMPTY both count as not FULL)
+     *
+     * @param other the grid to compare with
+     * @return the number of cells that are FULL in one grid but not the other
+     */
+    public int countFullMismatch(PackedGrid other) {
+        checkSameSize(other);
+
+        ByteBuffer a   = cells;
+        ByteBuffer b   = other.cells;
+        int        bad = 0;
+        int        i   = 0;
+
+        for (; i+8<=size; i+=8)
+            bad += Long.bitCount((a.getLong(i) ^ b.getLong(i)) & LOW_BITS);
+
+        for (; i<size; i++)
+            if ((a.get(i) == Dawgram.FULL) != (b.get(i) == Dawgram.FULL))
+                bad++;
+
+        return bad;
+    }
+
+    /**
+     * Count the known (FULL or EMPTY) cells whose state differs from a goal grid of the same size
+     *
+     * @param goal the goal to compare with
+     * @return the number of wrong cells (UNKNOWN cells are never wrong)
+     */
+    public int countWrong(PackedGrid goal) {
+        checkSameSize(goal);
+
+        ByteBuffer a     = cells;
+        ByteBuffer b     = goal.cells;
+        int        wrong = 0;
+        int        i     = 0;
+
+        for (; i+8<=size; i+=8) {
+            long x = a.getLong(i);
+            long d = x ^ b.getLong(i);
+
+            wrong += Long.bitCount((d | (d >>> 1)) & ~(x >>> 1) & LOW_BITS);
+        }
+
+        for (; i<size; i++)
+            if ((a.get(i) != Dawgram.UNKNOWN) && (a.get(i) != b.get(i)))
+                wrong++;
+
+        return wrong;
+    }
+
+    /**
+     * Count the cells whose state differs from another grid of the same size (e.g. a snapshot)
+     *
+     * @param other the grid to compare with
+     * @return the number of differing cells
+     */
+    public int countDiff(PackedGrid other) {
+        checkSameSize(other);
+
+        ByteBuffer a    = cells;
+        ByteBuffer b    = other.cells;
+        int        diff = 0;
+        int        i    = 0;
+
+        for (; i+8<=size; i+=8) {
+            long x = a.getLong(i) ^ b.getLong(i);
+
+            diff += Long.bitCount((x | (x >>> 1)) & LOW_BITS); // states only use bits 0 and 1
+        }
+
+        for (; i<size; i++)
+            if (a.get(i) != b.get(i))
+                diff++;
+
+        return diff;
+    }
+
+    /**
+     * Find the cells whose state differs from another grid of the same size (e.g. a snapshot)
+     *
+     * @param other the grid to compare with
+     * @return the differing cells as row-major indices (row*numCols + col), in order
+     */
+    public int[] diff(PackedGrid other) {
+        int[]      idx = new int[countDiff(other)];
+        ByteBuffer a   = cells;
+        ByteBuffer b   = other.cells;
+        int        k   = 0;
+        int        i   = 0;
+
+        for (; (i+8<=size) && (k<idx.length); i+=8) {
+            long x = a.getLong(i) ^ b.getLong(i);
+
+            for (long set = (x | (x >>> 1)) & LOW_BITS; set != 0; set &= set-1)
+                idx[k++] = i + (Long.numberOfTrailingZeros(set) >>> 3);
+        }
+
+        for (; (i<size) && (k<idx.length); i++)
+            if (a.get(i) != b.get(i))
+                idx[k++] = i;
+
+        return idx;
+    }
+
+    /**
+     * Copy the cell states of another grid of the same size into this one
+     *
+     * @param other the grid to copy from
+     */
+    public void copyFrom(PackedGrid other) {
+        checkSameSize(other);
+
+        cells.put(0, other.cells, 0, size);
+    }
+
+    /**
+     * Copy the cell states out into an array
+     *
+     * @return the cell states, row-major
+     */
+    public byte[] toArray() {
+        checkOpen();
+
+        byte[] dst = new byte[size];
+
+        cells.get(0, dst);
+
+        return dst;
+    }
+
+    /**
+     * Create a copy (snapshot) of the grid, on the heap
+     *
+     * @return the copy
+     */
+    public PackedGrid copy() {
+        PackedGrid grid = new PackedGrid(numRows, numCols, ByteBuffer.allocate(size), null);
+
+        grid.copyFrom(this);
+
+        return grid;
+    }
+
+    /**
+     * Is the grid held outside the heap (direct or memory-mapped)?
+     *
+     * @return true if off-heap, otherwise false
+     */
+    public boolean isOffHeap() {
+        return cells.isDirect();
+    }
+
+    /**
+     * Write any changes to a memory-mapped grid back to its file
+     */
+    public void flush() {
+        checkOpen();
+
+        if (channel != null)
+            ((MappedByteBuffer) cells).force();
+    }
+
+    /**
+     * Close the grid: a mapped grid is flushed and its file closed, and the buffer is dropped (its
+     * memory, or mapping, is released once garbage collected).  After closing, every access to
+     * the grid throws an IllegalStateException.
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+
+        try {
+            flush();
+
+            if (channel != null)
+                channel.close();
+        } catch (IOException e) {
+            throw new DawgramException("closing grid failed (" + e.getMessage() + ")");
+        } finally {
+            cells   = ByteBuffer.allocate(0); // let the buffer be garbage collected
+            channel = null;
+            closed  = true;
+        }
+    }
+
+    /**
+     * Has the grid been closed?
+     *
+     * @return true if closed, otherwise false
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Check another grid is the same size as this one (and both are open)
+     *
+     * @param other the grid to check
+     */
+    private void checkSameSize(PackedGrid other) {
+        if (other == null)
+            throw new IllegalArgumentException("other cannot be null");
+
+        if ((other.numRows != numRows) || (other.numCols != numCols))
+            throw new IllegalArgumentException("other must be " + numRows + "x" + numCols + " (" + other.numRows + "x" + other.numCols + ")");
+
+        checkOpen();
+        other.checkOpen();
+    }
+
+    /**
+     * Check the grid has not been closed
+     */
+    private void checkOpen() {
+        if (closed)
+            throw new IllegalStateException("grid is closed");
+    }
+
+    /**
+     * Check the grid dimensions are usable
+     *
+     * @param numRows the number of rows
+     * @param numCols the number of columns
+     * @return the number of cells
+     */
+    private static int checkSize(int numRows, int numCols) {
+        if (numRows <= 0)
+            throw new IllegalArgumentException("numRows must be > 0 (" + numRows + ")");
+
+        if (numCols <= 0)
+            throw new IllegalArgumentException("numCols must be > 0 (" + numCols + ")");
+
+        if ((long) numRows*numCols > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("grid too large (" + numRows + "x" + numCols + ")");
+
+        return numRows*numCols;
+    }
+
+    private static final long LOW_BITS = 0x0101010101010101L; // bit 0 of every byte
+
+    private ByteBuffer  cells   = null;  // cell states, row-major, little-endian
+    private FileChannel channel = null;  // the mapped file (or null)
+    private boolean     closed  = false;
+    private int         numRows = -1;
+    private int         numCols = -1;
+    private int         size    = 0;     // number of cells
+}
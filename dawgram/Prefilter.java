@@ -0,0 +1,161 @@
+/**
+* A fast feasibility prefilter for Dawgram clue sets, to reject broken puzzles before any search.
+*
+* The checks, cheapest first:
+*
+*   - every pattern fits its line (NGPattern.calcMinLen)
+*   - the row patterns and the column patterns add up to the same number of full cells
+*   - some grid of 0s and 1s has those row and column full cell counts (the Gale-Ryser test: with
+*     the column counts sorted largest first, for every k the k largest add up to no more than
+*     the sum over the rows of min(row count, k))
+*   - one round of propagation (every row, then every column) finds no contradiction
+*
+* Passing the prefilter does not prove a puzzle has a solution, but failing it proves it has none.
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+import java.util.Arrays;
+
+
+public class Prefilter {
+    /**
+     * Prefilter a puzzle
+     *
+     * @param ng the dawgram puzzle (only its patterns are used)
+     * @return null if the puzzle passes, otherwise the reason it has no solution
+     */
+    public static String check(Dawgram ng) {
+        if (ng == null)
+            throw new IllegalArgumentException("ng cannot be null");
+
+        int[][] rowNums = new int[ng.getNumRows()][];
+        int[][] colNums = new int[ng.getNumCols()][];
+
+        for (int row=0; row<rowNums.length; row++)
+            rowNums[row] = ng.getRowNums(row);
+
+        for (int col=0; col<colNums.length; col++)
+            colNums[col] = ng.getColNums(col);
+
+        return check(rowNums, colNums);
+    }
+
+    /**
+     * Prefilter a clue set
+     *
+     * @param rowNums the patterns of contiguous full cells for the rows
+     * @param colNums the patterns of contiguous full cells for the columns
+     * @return null if the clues pass, otherwise the reason they have no solution
+     */
+    public static String check(int[][] rowNums, int[][] colNums) {
+        if ((rowNums == null) || (colNums == null))
+            throw new IllegalArgumentException("rowNums and colNums cannot be null");
+
+        int   numRows = rowNums.length;
+        int   numCols = colNums.length;
+        int[] rowSums = new int[numRows];
+        int[] colSums = new int[numCols];
+
+        for (int row=0; row<numRows; row++) {
+            if (!NGPattern.checkNums(rowNums[row]))
+                return "row " + row + " nums invalid";
+
+            if (NGPattern.calcMinLen(rowNums[row]) > numCols)
+                return "row " + row + " nums too long for " + numCols + " cells";
+
+            rowSums[row] = sum(rowNums[row]);
+        }
+
+        for (int col=0; col<numCols; col++) {
+            if (!NGPattern.checkNums(colNums[col]))
+                return "col " + col + " nums invalid";
+
+            if (NGPattern.calcMinLen(colNums[col]) > numRows)
+                return "col " + col + " nums too long for " + numRows + " cells";
+
+            colSums[col] = sum(colNums[col]);
+        }
+
+        long rowTotal = 0;
+        long colTotal = 0;
+
+        for (int num : rowSums)
+            rowTotal += num;
+
+        for (int num : colSums)
+            colTotal += num;
+
+        if (rowTotal != colTotal)
+            return "rows have " + rowTotal + " full cells but cols have " + colTotal;
+
+        int k = galeRyser(rowSums, colSums);
+
+        if (k > 0)
+            return "no grid has these row and col full cell counts (the " + k + " fullest cols)";
+
+        Solver solver = new Solver(rowNums, colNums, BitLineSolver::new);
+
+        if (!solver.round())
+            return "propagation finds a contradiction";
+
+        return null;
+    }
+
+    /**
+     * The Gale-Ryser test: does some grid of 0s and 1s have the given row and column sums? (The
+     * totals must already be known to be equal.)  Costs O(rows + cols log cols).
+     *
+     * @param rowSums the number of full cells in each row
+     * @param colSums the number of full cells in each column
+     * @return 0 if such a grid exists, otherwise the first k for which the k largest column sums
+     *         are too many for the rows
+     */
+    static int galeRyser(int[] rowSums, int[] colSums) {
+        int   numCols = colSums.length;
+        int[] atLeast = new int[numCols+2]; // atLeast[k]: the number of rows with a sum >= k
+
+        for (int num : rowSums)
+            atLeast[Math.min(num, numCols+1)]++;
+
+        for (int k=numCols; k>=0; k--)
+            atLeast[k] += atLeast[k+1];
+
+        int[] sorted = Arrays.copyOf(colSums, numCols);
+
+        Arrays.sort(sorted);
+
+        long lhs = 0; // the k largest column sums
+        long rhs = 0; // sum over the rows of min(row sum, k)
+
+        for (int k=1; k<=numCols; k++) {
+            lhs += sorted[numCols-k];
+            rhs += atLeast[k];
+
+            if (lhs > rhs)
+                return k;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Add up a pattern
+     *
+     * @param nums the pattern of contiguous full cells
+     * @return the number of full cells
+     */
+    private static int sum(int[] nums) {
+        int total = 0;
+
+        for (int num : nums)
+            total += num;
+
+        return total;
+    }
+}
@@ -0,0 +1,163 @@
+/**
+* An index of rated Dawgram puzzles, so a puzzle of a wanted difficulty can be picked in O(1)
+* without solving anything at request time.
+*
+* The index file has one line per puzzle, tab separated:
+*
+*   file  rating  lineSolvable  rounds  probes  searchNodes  maxDepth
+*
+* where rating is a Difficulty rating name.  Lines starting with '#' are comments.
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+
+public class PuzzleIndex {
+    /**
+     * Constructor for an empty index
+     */
+    public PuzzleIndex() {
+        for (int rating=0; rating<byRating.length; rating++)
+            byRating[rating] = new ArrayList<>();
+    }
+
+    /**
+     * Add a rated puzzle (safe to call from several threads at once)
+     *
+     * @param file the puzzle file name
+     * @param difficulty the puzzle's difficulty
+     */
+    public synchronized void add(String file, Difficulty difficulty) {
+        if (file == null)
+            throw new IllegalArgumentException("file cannot be null");
+
+        if (difficulty == null)
+            throw new IllegalArgumentException("difficulty cannot be null");
+
+        add(file + "\t" + Difficulty.ratingName(difficulty.getRating())
+            + "\t" + difficulty.isLineSolvable() + "\t" + difficulty.getRounds()
+            + "\t" + difficulty.getProbes() + "\t" + difficulty.getSearchNodes()
+            + "\t" + difficulty.getMaxDepth());
+    }
+
+    /**
+     * Add a puzzle from an index file line
+     *
+     * @param line the index line
+     */
+    private void add(String line) {
+        String[] fields = line.split("\t");
+
+        if (fields.length != NUM_FIELDS)
+            throw new DawgramException("index line must have " + NUM_FIELDS + " fields (" + line + ")");
+
+        int rating;
+
+        try {
+            rating = Difficulty.ratingFromName(fields[1]);
+        } catch (IllegalArgumentException e) {
+            throw new DawgramException("unknown rating (" + fields[1] + ")");
+        }
+
+        byRating[rating].add(fields[0]);
+        lines.add(line);
+    }
+
+    /**
+     * Pick a random puzzle of a given rating
+     *
+     * @param rating the wanted rating (see Difficulty)
+     * @param rnd the random number generator to use
+     * @return the puzzle file name, or null if there are none of that rating
+     */
+    public synchronized String pick(int rating, Random rnd) {
+        if ((rating < 0) || (rating >= byRating.length))
+            throw new IllegalArgumentException("invalid rating (" + rating + ")");
+
+        if (rnd == null)
+            throw new IllegalArgumentException("rnd cannot be null");
+
+        List<String> files = byRating[rating];
+
+        return files.isEmpty() ? null : files.get(rnd.nextInt(files.size()));
+    }
+
+    /**
+     * Retrieve the number of puzzles of a given rating
+     *
+     * @param rating the rating (see Difficulty)
+     * @return the number of puzzles
+     */
+    public synchronized int count(int rating) {
+        if ((rating < 0) || (rating >= byRating.length))
+            throw new IllegalArgumentException("invalid rating (" + rating + ")");
+
+        return byRating[rating].size();
+    }
+
+    /**
+     * Retrieve the number of puzzles in the index
+     *
+     * @return the number of puzzles
+     */
+    public synchronized int size() {
+        return lines.size();
+    }
+
+    /**
+     * Write the index to a file
+     *
+     * @param file the index file
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void save(File file) throws IOException {
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("# file\trating\tlineSolvable\trounds\tprobes\tsearchNodes\tmaxDepth\n");
+
+            for (String line : lines)
+                writer.write(line + "\n");
+        }
+    }
+
+    /**
+     * Read an index from a file
+     *
+     * @param file the index file
+     * @return the index
+     * @throws IOException if the file cannot be read
+     */
+    public static PuzzleIndex load(File file) throws IOException {
+        PuzzleIndex index = new PuzzleIndex();
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+
+            while ((line = reader.readLine()) != null)
+                if (!line.isEmpty() && !line.startsWith("#"))
+                    index.add(line);
+        }
+
+        return index;
+    }
+
+    public static final String INDEX_FILE = "index.tsv";
+    private static final int   NUM_FIELDS = 7;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<String>[] byRating = new List[Difficulty.FIENDISH+1]; // file names by rating
+    private List<String>   lines    = new ArrayList<>();               // index lines, in order added
+}
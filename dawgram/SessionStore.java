@@ -0,0 +1,584 @@
+/**
+* The games of a DawgramServer, one Dawgram per session, kept within a memory budget.
+*
+* Sessions in memory are kept in least-recently-used order.  When their estimated size goes over
+* the budget, the least recently used are hibernated: the puzzle, its packed cell states and its
+* moves (the undo journal) are written to a file in the store's directory and the puzzle is
+* dropped.  The next request for a hibernated session reads it back (rehydrates it).  Nothing is
+* kept in memory for a hibernated session, so the heap stays bounded however many there are.
+*
+* Work on a session (see apply) holds the session's lock, so it never sees the session hibernate
+* under it.  The store's own lock guards the LRU order (and the check for a hibernated file, so
+* that a session is only read back once); it is never held while a file is read or written.
+* Locks are always taken session first, then store, and a session is only hibernated by a thread
+* holding no other session.
+*
+* The locks are ReentrantLocks rather than monitors: a virtual thread that waits on a busy session,
+* or reads or writes its file while holding one, then parks rather than pinning its carrier
+* thread, so requests for other sessions keep running.
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+
+public class SessionStore {
+    /**
+     * Constructor
+     *
+     * @param dir the directory to hibernate sessions in (created if need be)
+     * @param maxBytes the memory budget for sessions in memory, in estimated bytes
+     * @throws IOException if the directory cannot be created
+     */
+    public SessionStore(Path dir, long maxBytes) throws IOException {
+        if (dir == null)
+            throw new IllegalArgumentException("dir cannot be null");
+
+        if (maxBytes <= 0)
+            throw new IllegalArgumentException("maxBytes must be > 0 (" + maxBytes + ")");
+
+        this.dir      = Files.createDirectories(dir);
+        this.maxBytes = maxBytes;
+
+        // sessions hibernated by an earlier store on the same directory carry on
+        try (Stream<Path> files = Files.list(this.dir)) {
+            numSessions.set((int) files.filter(file -> file.toString().endsWith(".session")).count());
+        }
+    }
+
+    /**
+     * Add a session (in memory, as the most recently used)
+     *
+     * @param id the session id (letters, digits and '-' only, as it names a file)
+     * @param puzzle the game of the session
+     */
+    public void add(String id, Dawgram puzzle) {
+        if (!isValidId(id))
+            throw new IllegalArgumentException("id must be letters, digits and '-' (" + id + ")");
+
+        if (puzzle == null)
+            throw new IllegalArgumentException("puzzle cannot be null");
+
+        Session session = new Session(id);
+
+        session.puzzle = puzzle;
+        session.bytes  = estimateBytes(puzzle);
+
+        lruLock.lock();
+
+        try {
+            if (lru.containsKey(id) || Files.exists(file(id)))
+                throw new IllegalArgumentException("session already exists (" + id + ")");
+
+            lru.put(id, session);
+            bytesInMemory += session.bytes;
+        } finally {
+            lruLock.unlock();
+        }
+
+        numSessions.incrementAndGet();
+        evict(session);
+    }
+
+    /**
+     * Do some work on the game of a session (rehydrating it first if hibernated), holding the
+     * session so nothing else works on it at the same time
+     *
+     * @param id the session id
+     * @param work the work (must not return null)
+     * @return what the work returns, or null if there is no such session
+     */
+    public <T> T apply(String id, Function<Dawgram, T> work) {
+        if (work == null)
+            throw new IllegalArgumentException("work cannot be null");
+
+        while (true) {
+            Session session = find(id);
+
+            if (session == null)
+                return null;
+
+            T result;
+
+            session.lock.lock();
+
+            try {
+                if (session.gone)
+                    continue; // hibernated or removed since found: look again
+
+                if (session.puzzle == null)
+                    rehydrate(session);
+
+                result = work.apply(session.puzzle);
+
+                resize(session, estimateBytes(session.puzzle));
+            } finally {
+                session.lock.unlock();
+            }
+
+            evict(session);
+
+            return result;
+        }
+    }
+
+    /**
+     * Remove a session, in memory or hibernated
+     *
+     * @param id the session id
+     * @return true if removed, false if there was no such session
+     */
+    public boolean remove(String id) {
+        while (true) {
+            Session session = find(id);
+
+            if (session == null)
+                return false;
+
+            session.lock.lock();
+
+            try {
+                if (session.gone)
+                    continue;
+
+                if (session.puzzle != null)
+                    session.puzzle.close();
+
+                session.puzzle = null;
+                session.gone   = true;
+
+                lruLock.lock();
+
+                try {
+                    lru.remove(id);
+                    bytesInMemory -= session.bytes;
+                } finally {
+                    lruLock.unlock();
+                }
+
+                try {
+                    Files.deleteIfExists(file(id));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            } finally {
+                session.lock.unlock();
+            }
+
+            numSessions.decrementAndGet();
+
+            return true;
+        }
+    }
+
+    /**
+     * Hibernate every session in memory (e.g. before shutting down)
+     */
+    public void hibernateAll() {
+        List<Session> all;
+
+        lruLock.lock();
+
+        try {
+            all = new ArrayList<>(lru.values());
+        } finally {
+            lruLock.unlock();
+        }
+
+        for (Session session : all)
+            hibernate(session);
+    }
+
+    /**
+     * Find a session, in memory or else hibernated (then noted in memory, its puzzle still to be
+     * read back), counting a hit or a miss
+     */
+    private Session find(String id) {
+        if (!isValidId(id))
+            return null;
+
+        lruLock.lock();
+
+        try {
+            Session session = lru.get(id);
+
+            if (session != null) {
+                if (session.puzzle != null)
+                    hits.incrementAndGet();
+                else
+                    misses.incrementAndGet(); // another request is rehydrating it
+
+                return session;
+            }
+
+            if (!Files.exists(file(id)))
+                return null;
+
+            session = new Session(id);
+            lru.put(id, session);
+            misses.incrementAndGet();
+
+            return session;
+        } finally {
+            lruLock.unlock();
+        }
+    }
+
+    /**
+     * Read a hibernated session back (holding the session)
+     */
+    private void rehydrate(Session session) {
+        long start = System.nanoTime();
+        Path file  = file(session.id);
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC)
+                throw new DawgramException("not a hibernated session (" + file + ")");
+
+            byte[] non     = new byte[in.readInt()];
+            in.readFully(non);
+
+            Dawgram puzzle = new Dawgram(new Scanner(new String(non, StandardCharsets.UTF_8)));
+            byte[]  states = new byte[in.readInt()];
+
+            in.readFully(states);
+
+            int          numMoves = in.readInt();
+            List<Assign> moves    = new ArrayList<>(numMoves);
+
+            for (int i=0; i<numMoves; i++)
+                moves.add(new Assign(in.readInt(), in.readInt(), in.readByte(), in.readBoolean()));
+
+            puzzle.setHeatmapHints(false);
+            puzzle.setAutoFill(in.readBoolean());
+            puzzle.resume(states, moves);
+
+            session.puzzle = puzzle;
+            Files.delete(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot rehydrate session " + session.id, e);
+        }
+
+        long nanos = System.nanoTime() - start;
+
+        rehydrations.incrementAndGet();
+        rehydrateNanos.addAndGet(nanos);
+        maxRehydrateNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Write a session out and drop its puzzle, unless it is gone or already hibernated
+     */
+    private void hibernate(Session session) {
+        session.lock.lock();
+
+        try {
+            if (session.gone || (session.puzzle == null))
+                return;
+
+            Dawgram puzzle = session.puzzle;
+            Path    file   = file(session.id);
+            Path    temp   = dir.resolve(session.id + ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                byte[]       non   = puzzle.toStringAsNonFile().getBytes(StandardCharsets.UTF_8);
+                byte[]       cells = puzzle.getGrid().toArray();
+                List<Assign> moves = puzzle.getMoves();
+
+                out.writeInt(MAGIC);
+                out.writeInt(non.length);
+                out.write(non);
+                out.writeInt(cells.length);
+                out.write(cells);
+                out.writeInt(moves.size());
+
+                for (Assign move : moves) {
+                    out.writeInt(move.getRow());
+                    out.writeInt(move.getCol());
+                    out.writeByte(move.getState());
+                    out.writeBoolean(move.isAuto());
+                }
+
+                out.writeBoolean(puzzle.isAutoFill());
+            } catch (IOException e) {
+                throw new UncheckedIOException("cannot hibernate session " + session.id, e);
+            }
+
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("cannot hibernate session " + session.id, e);
+            }
+
+            puzzle.close();
+            session.puzzle = null;
+            session.gone   = true; // a new Session stands for it once it is found again
+
+            lruLock.lock();
+
+            try {
+                lru.remove(session.id, session);
+                bytesInMemory -= session.bytes;
+            } finally {
+                lruLock.unlock();
+            }
+
+            hibernations.incrementAndGet();
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * Note the new estimated size of a session in memory
+     */
+    private void resize(Session session, long bytes) {
+        lruLock.lock();
+
+        try {
+            bytesInMemory += bytes - session.bytes;
+            session.bytes  = bytes;
+        } finally {
+            lruLock.unlock();
+        }
+    }
+
+    /**
+     * Hibernate the least recently used sessions while over the memory budget (never the one
+     * just used).  The caller must hold no session.
+     */
+    private void evict(Session keep) {
+        while (true) {
+            Session victim = null;
+
+            lruLock.lock();
+
+            try {
+                if (bytesInMemory <= maxBytes)
+                    return;
+
+                for (Iterator<Session> it=lru.values().iterator(); it.hasNext() && (victim == null); ) {
+                    Session session = it.next();
+
+                    if ((session != keep) && (session.puzzle != null))
+                        victim = session;
+                }
+            } finally {
+                lruLock.unlock();
+            }
+
+            if (victim == null)
+                return; // only the session just used is left
+
+            hibernate(victim);
+        }
+    }
+
+    /**
+     * Estimate the heap used by a puzzle: a fixed part, each row and column's pattern, each cell,
+     * each move on the undo stack, and the puzzle's hint and heatmap caches as they stand (so the
+     * estimate grows once hints are asked for)
+     *
+     * @param puzzle the puzzle
+     * @return the estimate in bytes
+     */
+    public static long estimateBytes(Dawgram puzzle) {
+        long lines = puzzle.getNumRows() + puzzle.getNumCols();
+        long cells = (long) puzzle.getNumRows() * puzzle.getNumCols();
+
+        return PUZZLE_BYTES + lines*LINE_BYTES + cells*CELL_BYTES + puzzle.getNumMoves()*MOVE_BYTES
+               + puzzle.estimateCacheBytes();
+    }
+
+    /**
+     * Is an id safe to name a file with: letters, digits and '-' only?
+     */
+    private static boolean isValidId(String id) {
+        if ((id == null) || id.isEmpty() || (id.length() > MAX_ID_LENGTH))
+            return false;
+
+        for (int i=0; i<id.length(); i++) {
+            char c = id.charAt(i);
+
+            if (!(((c >= '0') && (c <= '9')) || ((c >= 'A') && (c <= 'Z')) || ((c >= 'a') && (c <= 'z')) || (c == '-')))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * The file a session hibernates in
+     */
+    private Path file(String id) {
+        return dir.resolve(id + ".session");
+    }
+
+    /**
+     * Retrieve the number of sessions, in memory and hibernated
+     *
+     * @return the number of sessions
+     */
+    public int getNumSessions() {
+        return numSessions.get();
+    }
+
+    /**
+     * Retrieve the number of sessions in memory
+     *
+     * @return the number of sessions
+     */
+    public int getNumInMemory() {
+        lruLock.lock();
+
+        try {
+            return lru.size();
+        } finally {
+            lruLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieve the estimated bytes of the sessions in memory
+     *
+     * @return the bytes
+     */
+    public long getBytesInMemory() {
+        lruLock.lock();
+
+        try {
+            return bytesInMemory;
+        } finally {
+            lruLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieve the memory budget
+     *
+     * @return the bytes
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Retrieve the number of requests that found their session in memory
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Retrieve the number of requests that found their session hibernated
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Retrieve the number of sessions hibernated
+     *
+     * @return the number of hibernations
+     */
+    public long getHibernations() {
+        return hibernations.get();
+    }
+
+    /**
+     * Retrieve the number of sessions rehydrated
+     *
+     * @return the number of rehydrations
+     */
+    public long getRehydrations() {
+        return rehydrations.get();
+    }
+
+    /**
+     * Retrieve the mean time to rehydrate a session
+     *
+     * @return the time in nanoseconds (0 if none rehydrated)
+     */
+    public long getMeanRehydrateNanos() {
+        long count = rehydrations.get();
+
+        return (count == 0) ? 0 : rehydrateNanos.get() / count;
+    }
+
+    /**
+     * Retrieve the longest time to rehydrate a session
+     *
+     * @return the time in nanoseconds
+     */
+    public long getMaxRehydrateNanos() {
+        return maxRehydrateNanos.get();
+    }
+
+    /**
+     * A session: its game while in memory (null while hibernated)
+     */
+    private static class Session {
+        Session(String id) {
+            this.id = id;
+        }
+
+        final String        id;
+        final ReentrantLock lock   = new ReentrantLock(); // held while working on the session
+        Dawgram             puzzle = null;
+        long                bytes  = 0;     // estimated, counted in bytesInMemory
+        boolean             gone   = false; // hibernated or removed: no longer stands for its id
+    }
+
+    // estimated heap per puzzle, per line (its constraint and pattern), per cell and per move
+    // (measured at 20x20 and 70x130, after a move and a hint, less the caches the puzzle counts)
+    public static final long PUZZLE_BYTES = 2048;
+    public static final long LINE_BYTES   = 80;
+    public static final long CELL_BYTES   = 2;
+    public static final long MOVE_BYTES   = 40;
+
+    private static final int    MAGIC         = 0x44574753; // "DWGS"
+    private static final int    MAX_ID_LENGTH = 64;
+
+    private final Path                          dir;
+    private final long                          maxBytes;
+    private final ReentrantLock                 lruLock       = new ReentrantLock();                  // guards lru and bytesInMemory
+    private final LinkedHashMap<String, Session> lru          = new LinkedHashMap<>(16, 0.75f, true); // access order
+    private long                                bytesInMemory = 0;                                    // guarded by lruLock
+    private final AtomicInteger                 numSessions   = new AtomicInteger();
+
+    private final AtomicLong hits              = new AtomicLong();
+    private final AtomicLong misses            = new AtomicLong();
+    private final AtomicLong hibernations      = new AtomicLong();
+    private final AtomicLong rehydrations      = new AtomicLong();
+    private final AtomicLong rehydrateNanos    = new AtomicLong();
+    private final AtomicLong maxRehydrateNanos = new AtomicLong();
+}
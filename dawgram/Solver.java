@@ -0,0 +1,993 @@
+/**
+* A propagation solver for a Dawgram puzzle.  It repeatedly runs a line solver over the rows and
+* columns, deducing cells until no more can be found.  Only dirty lines are revisited, highest
+* estimated gain first (see LineScheduler).
+*
+* Grids of at least the parallel threshold are propagated in bulk-synchronous rounds instead: all
+* dirty rows are solved in parallel on a fork-join pool, then all dirty columns.  Each row (column)
+* task writes only its own stripe of the shared grid, so no locking is needed.
+*
+* solve() runs propagation then probing within a time limit or a budget of line solver calls, and
+* stops cleanly (between lines) when it runs out, keeping only proven cells.
+*
+* When propagation alone stalls, probe() tries each unknown cell both ways looking for one that
+* leads to a contradiction, and countSolutions() backtracks over guessed cells, which also proves
+* whether a puzzle's solution is unique.
+*
+* The solver works on its own copy of the cell states, so the Dawgram is never changed.  Its work
+* can be watched live through a SolverTrace.
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+
+public class Solver {
+    /**
+     * Constructor, starting from the current cell states of the puzzle and using a DPLineSolver
+     *
+     * @param ng the dawgram puzzle to solve
+     */
+    public Solver(Dawgram ng) {
+        this(ng, DPLineSolver::new);
+    }
+
+    /**
+     * Constructor, starting from the current cell states of the puzzle
+     *
+     * @param ng the dawgram puzzle to solve
+     * @param lineSolvers a factory for the line solver(s) to use, one is created per thread
+     */
+    public Solver(Dawgram ng, Supplier<LineSolver> lineSolvers) {
+        if (ng == null)
+            throw new IllegalArgumentException("ng cannot be null");
+
+        int[][] rowNums = new int[ng.getNumRows()][];
+        int[][] colNums = new int[ng.getNumCols()][];
+
+        for (int row=0; row<rowNums.length; row++)
+            rowNums[row] = ng.getRowNums(row);
+
+        for (int col=0; col<colNums.length; col++)
+            colNums[col] = ng.getColNums(col);
+
+        init(rowNums, colNums, ng.getGrid().toArray(), lineSolvers);
+    }
+
+    /**
+     * Constructor from the patterns alone, starting with every cell UNKNOWN
+     *
+     * @param rowNums the patterns of contiguous full cells for the rows
+     * @param colNums the patterns of contiguous full cells for the columns
+     * @param lineSolvers a factory for the line solver(s) to use, one is created per thread
+     */
+    Solver(int[][] rowNums, int[][] colNums, Supplier<LineSolver> lineSolvers) {
+        if ((rowNums == null) || (colNums == null))
+            throw new IllegalArgumentException("rowNums and colNums cannot be null");
+
+        byte[] cells = new byte[rowNums.length*colNums.length];
+
+        Arrays.fill(cells, (byte) Dawgram.UNKNOWN);
+
+        init(rowNums, colNums, cells, lineSolvers);
+    }
+
+    /**
+     * Constructor for a search node: a copy of another solver's cell states, with nothing queued
+     *
+     * @param parent the solver to copy
+     */
+    private Solver(Solver parent) {
+        this.lineSolvers       = parent.lineSolvers;
+        this.numRows           = parent.numRows;
+        this.numCols           = parent.numCols;
+        this.grid              = parent.grid.clone();
+        this.lineNums          = parent.lineNums;
+        this.scheduler         = new LineScheduler(numRows+numCols);
+        this.numUnknown        = parent.numUnknown;
+        this.parallelThreshold = parent.parallelThreshold;
+        this.trace             = parent.trace;
+    }
+
+    /**
+     * Set up the solver and queue every line that could deduce something
+     *
+     * @param rowNums the patterns of contiguous full cells for the rows
+     * @param colNums the patterns of contiguous full cells for the columns
+     * @param cells the starting cell states, row-major (taken over, not copied)
+     * @param lineSolvers a factory for the line solver(s) to use, one is created per thread
+     */
+    private void init(int[][] rowNums, int[][] colNums, byte[] cells, Supplier<LineSolver> lineSolvers) {
+        if (lineSolvers == null)
+            throw new IllegalArgumentException("lineSolvers cannot be null");
+
+        this.lineSolvers = ThreadLocal.withInitial(lineSolvers);
+        this.numRows    = rowNums.length;
+        this.numCols    = colNums.length;
+        this.grid       = cells;
+        this.lineNums   = new int[numRows+numCols][];
+        this.scheduler  = new LineScheduler(numRows+numCols);
+
+        System.arraycopy(rowNums, 0, lineNums, 0, numRows);
+        System.arraycopy(colNums, 0, lineNums, numRows, numCols);
+
+        int[] known = new int[numRows+numCols];
+
+        for (int row=0; row<numRows; row++) {
+            for (int col=0; col<numCols; col++) {
+                if (grid[row*numCols+col] != Dawgram.UNKNOWN) {
+                    known[row]++;
+                    known[numRows+col]++;
+                } else {
+                    numUnknown++;
+                }
+            }
+        }
+
+        // queue every line that could deduce something; an all unknown line whose blocks
+        // are no longer than its slack cannot
+        for (int line=0; line<numRows+numCols; line++) {
+            int gain = calcOverlap(lineNums[line], lineLength(line)) + known[line];
+
+            if (gain > 0)
+                scheduler.add(line, gain);
+            else
+                linesSkipped++;
+        }
+    }
+
+    /**
+     * Solve as far as possible within a time limit: propagate, then probe.  Every cell known
+     * afterwards is proven (no guesses are kept); if time runs out the solver stops cleanly
+     * between lines and solve() may be called again to carry on from there.
+     *
+     * @param timeLimit the longest to run
+     * @return SOLVED, PARTIAL (some cells still UNKNOWN) or CONTRADICTION
+     */
+    public int solve(Duration timeLimit) {
+        if ((timeLimit == null) || timeLimit.isNegative())
+            throw new IllegalArgumentException("timeLimit must be >= 0");
+
+        return solve(System.nanoTime() + timeLimit.toNanos(), true, Long.MAX_VALUE);
+    }
+
+    /**
+     * Solve as far as possible within a budget of line solver calls (each probe counts as at least
+     * one), as solve(Duration)
+     *
+     * @param maxLineSolves the most line solver calls to make
+     * @return SOLVED, PARTIAL (some cells still UNKNOWN) or CONTRADICTION
+     */
+    public int solve(long maxLineSolves) {
+        if (maxLineSolves < 0)
+            throw new IllegalArgumentException("maxLineSolves must be >= 0 (" + maxLineSolves + ")");
+
+        long limit = getLineSolves() + maxLineSolves;
+
+        return solve(0, false, (limit < 0) ? Long.MAX_VALUE : limit);
+    }
+
+    /**
+     * Solve as far as possible within a deadline and/or a line solver budget
+     *
+     * @param deadline the System.nanoTime() to stop at (if hasDeadline)
+     * @param hasDeadline is there a deadline?
+     * @param maxLineSolves stop once getLineSolves() reaches this
+     * @return SOLVED, PARTIAL or CONTRADICTION
+     */
+    private int solve(long deadline, boolean hasDeadline, long maxLineSolves) {
+        this.deadline      = deadline;
+        this.hasDeadline   = hasDeadline;
+        this.maxLineSolves = maxLineSolves;
+        this.interrupted   = false;
+
+        try {
+            probe();
+        } finally {
+            this.hasDeadline   = false;
+            this.maxLineSolves = Long.MAX_VALUE;
+            this.interrupted   = false;
+        }
+
+        if (contradiction)
+            return CONTRADICTION;
+
+        return (numUnknown == 0) ? SOLVED : PARTIAL;
+    }
+
+    /**
+     * Should a budgeted solve() stop now?  Cheap enough to call after every line: the clock is
+     * only read every DEADLINE_CHECK_INTERVAL calls.
+     *
+     * @param solves a count of line solves that advances with each call
+     * @return true if the deadline has passed or the budget is spent
+     */
+    private boolean shouldStop(long solves) {
+        if (interrupted)
+            return true;
+
+        if (getLineSolves() >= maxLineSolves)
+            interrupted = true;
+        else if (hasDeadline && ((solves & (DEADLINE_CHECK_INTERVAL-1)) == 0) && (System.nanoTime() - deadline >= 0))
+            interrupted = true;
+
+        return interrupted;
+    }
+
+    /**
+     * Propagate until no dirty lines remain (or a contradiction is found), in parallel if the
+     * grid has at least getParallelThreshold() cells
+     *
+     * @return true if the cell states are consistent, false on a contradiction
+     */
+    public boolean propagate() {
+        if (contradiction)
+            return false;
+
+        if ((long) numRows*numCols >= parallelThreshold)
+            return propagateParallel();
+
+        LineSolver lineSolver = lineSolvers.get();
+        byte[][]   rowBufs    = { new byte[numCols], new byte[numCols] };
+        byte[][]   colBufs    = { new byte[numRows], new byte[numRows] };
+
+        while (!scheduler.isEmpty() && !shouldStop(lineSolves)) {
+            int      idx   = scheduler.poll();
+            byte[][] bufs  = (idx < numRows) ? rowBufs : colBufs;
+            int      found = solveLine(idx, lineSolver, bufs[0], bufs[1], null);
+
+            lineSolves++;
+
+            if (found < 0) {
+                contradiction = true;
+                scheduler.clear();
+
+                return false;
+            }
+
+            numUnknown -= found;
+        }
+
+        return true;
+    }
+
+    /**
+     * Run a single bulk-synchronous round, sequentially: every dirty row, then every dirty column.
+     * Lines made dirty by the column phase stay queued for later propagation.
+     *
+     * @return true if the cell states are consistent, false on a contradiction
+     */
+    public boolean round() {
+        if (contradiction)
+            return false;
+
+        boolean[]  dirty      = new boolean[numRows+numCols];
+        LineSolver lineSolver = lineSolvers.get();
+        byte[][]   rowBufs    = { new byte[numCols], new byte[numCols] };
+        byte[][]   colBufs    = { new byte[numRows], new byte[numRows] };
+
+        while (!scheduler.isEmpty())
+            dirty[scheduler.poll()] = true;
+
+        for (int idx=0; idx<numRows+numCols; idx++) {
+            if (!dirty[idx])
+                continue;
+
+            byte[][] bufs = (idx < numRows) ? rowBufs : colBufs;
+
+            dirty[idx] = false;
+            lineSolves++;
+
+            int found = solveLine(idx, lineSolver, bufs[0], bufs[1], dirty);
+
+            if (found < 0) {
+                contradiction = true;
+
+                return false;
+            }
+
+            numUnknown -= found;
+        }
+
+        rounds++;
+
+        for (int idx=0; idx<numRows+numCols; idx++)
+            if (dirty[idx])
+                scheduler.add(idx, 1);
+
+        return true;
+    }
+
+    /**
+     * Propagate in bulk-synchronous rounds: every dirty row in parallel, then every dirty column
+     *
+     * @return true if the cell states are consistent, false on a contradiction
+     */
+    private boolean propagateParallel() {
+        boolean[] dirty = new boolean[numRows+numCols];
+
+        while (!scheduler.isEmpty())
+            dirty[scheduler.poll()] = true;
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        boolean      more = true;
+
+        while (more && !shouldStop(0)) {
+            pool.invoke(new Phase(dirty, 0, numRows));
+
+            if (!contradiction && !shouldStop(0))
+                pool.invoke(new Phase(dirty, numRows, numRows+numCols));
+
+            numUnknown -= (int) phaseFound.getAndSet(0);
+            rounds++;
+
+            if (contradiction)
+                return false;
+
+            more = false;
+
+            for (int i=0; (i<dirty.length) && !more; i++)
+                more = dirty[i];
+        }
+
+        // if interrupted, keep the lines still dirty for later
+        for (int i=0; i<dirty.length; i++)
+            if (dirty[i])
+                scheduler.add(i, 1);
+
+        return true;
+    }
+
+    /**
+     * Count the solutions (up to a limit) by propagation plus backtracking search: when
+     * propagation stalls, the first UNKNOWN cell is tried as FULL and then as EMPTY.  Two is
+     * enough of a limit to prove a puzzle has a unique solution.  Afterwards the solver's cell
+     * states are replaced by the first solution found, if any, so counting again just finds that
+     * solution (use a fresh solver to count again from the start).
+     *
+     * @param limit stop once this many solutions have been found
+     * @return the number of solutions found (at most limit)
+     */
+    public int countSolutions(int limit) {
+        return countSolutions(limit, Long.MAX_VALUE);
+    }
+
+    /**
+     * Count the solutions (up to a limit) as countSolutions(limit), but give up after visiting
+     * a given number of search nodes (counted from this call, not from earlier ones)
+     *
+     * @param limit stop once this many solutions have been found
+     * @param maxNodes the most search nodes to visit (the root counts as one)
+     * @return the number of solutions found (at most limit), or -1 if the search gave up
+     */
+    public int countSolutions(int limit, long maxNodes) {
+        if (limit < 1)
+            throw new IllegalArgumentException("limit must be >= 1 (" + limit + ")");
+
+        if (maxNodes < 1)
+            throw new IllegalArgumentException("maxNodes must be >= 1 (" + maxNodes + ")");
+
+        firstSolution = null;
+        nodeBudget    = (maxNodes > Long.MAX_VALUE - searchNodes) ? Long.MAX_VALUE : searchNodes + maxNodes;
+        gaveUp        = false;
+
+        int found = search(limit);
+
+        if (gaveUp)
+            return -1;
+
+        if (firstSolution != null) {
+            System.arraycopy(firstSolution, 0, grid, 0, grid.length);
+            numUnknown    = 0;
+            contradiction = false;
+        }
+
+        return found;
+    }
+
+    /**
+     * Find one solution by randomized search (random guessed cells, tried in a random order), so
+     * repeated samples spread over the solutions.  Afterwards the solver holds the sample.
+     *
+     * @param rnd the random number generator to use
+     * @param maxNodes the most search nodes to visit
+     * @return true if a solution was found, false if there is none or the search gave up
+     */
+    public boolean sample(SplittableRandom rnd, long maxNodes) {
+        if (rnd == null)
+            throw new IllegalArgumentException("rnd cannot be null");
+
+        branchRandom = rnd;
+
+        try {
+            return countSolutions(1, maxNodes) == 1;
+        } finally {
+            branchRandom = null;
+        }
+    }
+
+    /**
+     * Create a copy of the solver's cell states (with nothing queued), e.g. to sample from the
+     * same propagated state many times
+     *
+     * @return the copy
+     */
+    Solver copy() {
+        return new Solver(this);
+    }
+
+    /**
+     * Search the tree of guesses below the root (this solver), depth first.  The open guesses
+     * are kept on an explicit stack rather than the call stack, so a search may go as deep as
+     * there are cells.
+     *
+     * @param limit stop once this many solutions have been found
+     * @return the number of solutions found (at most limit)
+     */
+    private int search(int limit) {
+        ArrayDeque<Branch> open  = new ArrayDeque<>();
+        int                found = visit(this, 0, open);
+
+        while (!open.isEmpty() && (found < limit) && !gaveUp) {
+            Branch branch = open.peek();
+
+            if (branch.next == BRANCH_STATES.length) {
+                open.pop();
+
+                if ((branch.depth > 0) && (trace != null))
+                    trace.add(SolverTrace.backtrack());
+
+                continue;
+            }
+
+            Solver child = new Solver(branch.node);
+            byte   state = BRANCH_STATES[(branch.first+branch.next) % BRANCH_STATES.length];
+
+            branch.next++;
+            child.assume(branch.cell, state);
+
+            if (trace != null)
+                trace.add(SolverTrace.guess(branch.cell/numCols, branch.cell%numCols, state));
+
+            int before = open.size();
+
+            found += visit(child, branch.depth+1, open);
+
+            // a child with nothing left to guess is backtracked at once
+            if ((open.size() == before) && (trace != null))
+                trace.add(SolverTrace.backtrack());
+        }
+
+        // stopped early: back out of the guesses still open
+        if (trace != null)
+            for (Branch branch : open)
+                if (branch.depth > 0)
+                    trace.add(SolverTrace.backtrack());
+
+        return found;
+    }
+
+    /**
+     * Visit one search node: propagate it, and if it still has UNKNOWN cells push the guess to
+     * make next
+     *
+     * @param node the search node (this solver at the root)
+     * @param depth the number of guesses above the node
+     * @param open the open guesses, to push onto
+     * @return 1 if the node is a solution, otherwise 0
+     */
+    private int visit(Solver node, int depth, ArrayDeque<Branch> open) {
+        if (searchNodes++ >= nodeBudget) {
+            gaveUp = true;
+
+            return 0;
+        }
+
+        if (depth > maxDepth)
+            maxDepth = depth;
+
+        boolean consistent = node.propagate();
+
+        if (node != this)
+            lineSolves += node.getLineSolves();
+
+        if (!consistent)
+            return 0;
+
+        if (node.numUnknown == 0) {
+            if (firstSolution == null)
+                firstSolution = node.grid.clone();
+
+            return 1;
+        }
+
+        // guess the first UNKNOWN cell, or when sampling a random one in a random order
+        int  cell  = (branchRandom == null) ? 0 : branchRandom.nextInt(node.grid.length);
+        int  first = ((branchRandom == null) || branchRandom.nextBoolean()) ? 0 : 1;
+
+        while (node.grid[cell] != Dawgram.UNKNOWN)
+            cell = (cell+1) % node.grid.length;
+
+        open.push(new Branch(node, cell, first, depth));
+
+        return 0;
+    }
+
+    /**
+     * An open guess of the search: a node and the cell guessed below it
+     */
+    private static final class Branch {
+        Branch(Solver node, int cell, int first, int depth) {
+            this.node  = node;
+            this.cell  = cell;
+            this.first = first;
+            this.depth = depth;
+        }
+
+        private final Solver node;
+        private final int    cell;
+        private final int    first;  // the branch state tried first
+        private final int    depth;  // the number of guesses above the node
+        private int          next = 0; // the branches tried so far
+    }
+
+    /**
+     * Propagate, then probe: try each UNKNOWN cell as FULL and as EMPTY, and if one of them
+     * propagates to a contradiction the cell must be the other.  Repeats until no probe deduces
+     * anything, so it finds more than propagation alone but without any search.
+     *
+     * @return true if the cell states are consistent, false on a contradiction
+     */
+    public boolean probe() {
+        if (!propagate())
+            return false;
+
+        boolean progress = true;
+
+        while (progress && (numUnknown > 0) && !interrupted) {
+            progress = false;
+
+            for (int cell=0; (cell<grid.length) && !shouldStop(probes); cell++) {
+                if (grid[cell] != Dawgram.UNKNOWN)
+                    continue;
+
+                for (byte state : BRANCH_STATES) {
+                    Solver  child = new Solver(this);
+
+                    child.assume(cell, state);
+
+                    if (trace != null)
+                        trace.add(SolverTrace.guess(cell/numCols, cell%numCols, state));
+
+                    child.deadline      = deadline;
+                    child.hasDeadline   = hasDeadline;
+                    child.maxLineSolves = maxLineSolves - getLineSolves();
+                    probes++;
+
+                    boolean consistent = child.propagate();
+
+                    lineSolves += child.getLineSolves();
+
+                    if (trace != null)
+                        trace.add(SolverTrace.backtrack());
+
+                    if (child.interrupted) {
+                        interrupted = true;
+
+                        break;
+                    }
+
+                    if (!consistent) {
+                        byte other = (state == Dawgram.FULL) ? (byte) Dawgram.EMPTY : (byte) Dawgram.FULL;
+
+                        assume(cell, other);
+
+                        if (trace != null)
+                            trace.add(SolverTrace.deduce(cell/numCols, cell%numCols, other));
+
+                        if (!propagate())
+                            return false;
+
+                        progress = true;
+
+                        break;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Set an UNKNOWN cell to a guessed state, queueing its row and column
+     *
+     * @param cell the row-major cell index
+     * @param state the guessed state
+     */
+    private void assume(int cell, byte state) {
+        grid[cell] = state;
+        numUnknown--;
+        scheduler.add(cell/numCols, 1);
+        scheduler.add(numRows+(cell%numCols), 1);
+    }
+
+    /**
+     * Run the line solver over one line, writing any deduced cells back to the grid and marking
+     * their crossing lines dirty
+     *
+     * @param idx the line index
+     * @param lineSolver the line solver to use
+     * @param line scratch space of the line length
+     * @param before scratch space of the line length
+     * @param dirty the dirty flags to mark (or null to add to the scheduler)
+     * @return the number of deduced cells, or -1 on a contradiction
+     */
+    private int solveLine(int idx, LineSolver lineSolver, byte[] line, byte[] before, boolean[] dirty) {
+        int len = line.length;
+
+        readLine(idx, line);
+        System.arraycopy(line, 0, before, 0, len);
+
+        if (trace != null)
+            trace.add(SolverTrace.line(idx));
+
+        if (!lineSolver.solve(lineNums[idx], line)) {
+            if (trace != null)
+                trace.add(SolverTrace.contradiction(idx));
+
+            return -1;
+        }
+
+        int found = 0;
+
+        for (int i=0; i<len; i++) {
+            if (line[i] != before[i]) {
+                int cross = deduce(idx, i, line[i]);
+
+                if (trace != null)
+                    trace.add((idx < numRows) ? SolverTrace.deduce(idx, i, line[i]) : SolverTrace.deduce(i, idx-numRows, line[i]));
+
+                if (dirty == null)
+                    scheduler.add(cross, 1);
+                else
+                    dirty[cross] = true;
+
+                found++;
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Retrieve the (possibly deduced) state of an individual cell
+     *
+     * @param row the cell row
+     * @param col the cell column
+     * @return the cell state
+     */
+    public int getState(int row, int col) {
+        if ((row < 0)  || (row >= numRows))
+            throw new IllegalArgumentException("row invalid, must be 0 <= row < " + numRows);
+
+        if ((col < 0)  || (col >= numCols))
+            throw new IllegalArgumentException("col invalid, must be 0 <= col < " + numCols);
+
+        return grid[row*numCols+col];
+    }
+
+    /**
+     * Retrieve the solution found by propagation
+     *
+     * @return the solved cell states, or null if not (yet) solved
+     */
+    public PackedGrid getSolution() {
+        return isSolved() ? getGrid() : null;
+    }
+
+    /**
+     * Retrieve the cell states deduced so far (e.g. the proven part after a PARTIAL solve)
+     *
+     * @return a copy of the cell states, UNKNOWN where not yet deduced
+     */
+    public PackedGrid getGrid() {
+        PackedGrid cells = new PackedGrid(numRows, numCols);
+        byte[]     line  = new byte[numCols];
+
+        for (int row=0; row<numRows; row++) {
+            System.arraycopy(grid, row*numCols, line, 0, numCols);
+            cells.setRow(row, line);
+        }
+
+        return cells;
+    }
+
+    /**
+     * Retrieve the number of cells still UNKNOWN
+     *
+     * @return the number of unknown cells
+     */
+    public int getNumUnknown() {
+        return numUnknown;
+    }
+
+    /**
+     * Have all the cells been deduced without a contradiction?
+     *
+     * @return true if every cell is known, otherwise false
+     */
+    public boolean isSolved() {
+        return !contradiction && (numUnknown == 0);
+    }
+
+    /**
+     * Has propagation found a contradiction?
+     *
+     * @return true if the cell states cannot be completed, otherwise false
+     */
+    public boolean isContradiction() {
+        return contradiction;
+    }
+
+    /**
+     * Retrieve the number of line solver calls made so far
+     *
+     * @return the number of line solver calls
+     */
+    public long getLineSolves() {
+        return lineSolves + parallelSolves.get();
+    }
+
+    /**
+     * Retrieve the number of search nodes visited by countSolutions() so far
+     *
+     * @return the number of search nodes
+     */
+    public long getSearchNodes() {
+        return searchNodes;
+    }
+
+    /**
+     * Retrieve the deepest chain of guesses made by countSolutions() so far
+     *
+     * @return the maximum search depth
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Retrieve the number of probes (one cell tried in one state) made by probe() so far
+     *
+     * @return the number of probes
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * Retrieve the number of bulk-synchronous (row phase then column phase) rounds run so far
+     *
+     * @return the number of parallel rounds
+     */
+    public long getRounds() {
+        return rounds;
+    }
+
+    /**
+     * Attach (or detach) a live trace of the solver's work: every line solved, cell deduced, guess
+     * and backtrack is added to it, waiting for the viewer when it is full (see SolverTrace).
+     * Search and probe nodes share it.
+     *
+     * @param trace the trace (or null for none, the default, which costs nothing)
+     */
+    public void setTrace(SolverTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Retrieve the grid size (number of cells) at and above which propagation runs in parallel
+     *
+     * @return the parallel threshold
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Set the grid size (number of cells) at and above which propagation runs in parallel
+     * (0 to always run in parallel, Integer.MAX_VALUE to never)
+     *
+     * @param cells the parallel threshold
+     */
+    public void setParallelThreshold(int cells) {
+        if (cells < 0)
+            throw new IllegalArgumentException("cells must be >= 0 (" + cells + ")");
+
+        parallelThreshold = cells;
+    }
+
+    /**
+     * Retrieve the number of lines never queued because they could not deduce anything
+     *
+     * @return the number of skipped lines
+     */
+    public long getLinesSkipped() {
+        return linesSkipped;
+    }
+
+    /**
+     * Record a deduced cell in the grid
+     *
+     * @param line the line index the cell was deduced in
+     * @param i the cell position within the line
+     * @param state the deduced state
+     * @return the index of the crossing line
+     */
+    private int deduce(int line, int i, byte state) {
+        if (line < numRows) {
+            grid[line*numCols+i] = state;
+
+            return numRows + i;
+        } else {
+            grid[i*numCols+(line-numRows)] = state;
+
+            return i;
+        }
+    }
+
+    /**
+     * Copy the cell states of a line out of the grid
+     *
+     * @param line the line index
+     * @param dst the destination array (of the line length)
+     */
+    private void readLine(int line, byte[] dst) {
+        if (line < numRows) {
+            System.arraycopy(grid, line*numCols, dst, 0, numCols);
+        } else {
+            int col = line - numRows;
+
+            for (int row=0; row<numRows; row++)
+                dst[row] = grid[row*numCols+col];
+        }
+    }
+
+    /**
+     * Retrieve the length of a line
+     *
+     * @param line the line index
+     * @return numCols for a row, numRows for a column
+     */
+    private int lineLength(int line) {
+        return (line < numRows) ? numCols : numRows;
+    }
+
+    /**
+     * Count the cells the overlap of leftmost and rightmost block placements fixes on an empty line,
+     * i.e. the sum over the blocks of (block - slack) where slack = length - minimum length
+     *
+     * @param nums the pattern of contiguous full cells
+     * @param len the line length
+     * @return the number of cells fixed by overlap
+     */
+    static int calcOverlap(int[] nums, int len) {
+        int slack = len - NGPattern.calcMinLen(nums);
+        int sum   = 0;
+
+        for (int num : nums)
+            if (num > slack)
+                sum += num - slack;
+
+        return sum;
+    }
+
+    /**
+     * One phase (rows or columns) of a parallel round over a range of line indices.  Lines in the
+     * range touch disjoint cells, so they are solved concurrently without locking.
+     */
+    @SuppressWarnings("serial")
+    private class Phase extends RecursiveAction {
+        Phase(boolean[] dirty, int lo, int hi) {
+            this.dirty = dirty;
+            this.lo    = lo;
+            this.hi    = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi-lo > PHASE_SPLIT) {
+                int mid = (lo+hi) >>> 1;
+
+                invokeAll(new Phase(dirty, lo, mid), new Phase(dirty, mid, hi));
+
+                return;
+            }
+
+            LineSolver lineSolver = lineSolvers.get();
+            byte[]     line       = new byte[lineLength(lo)];
+            byte[]     before     = new byte[line.length];
+            int        found      = 0;
+            int        solves     = 0;
+
+            for (int idx=lo; (idx<hi) && !contradiction && !interrupted; idx++) {
+                if (!dirty[idx])
+                    continue;
+
+                if (hasDeadline && ((solves & (DEADLINE_CHECK_INTERVAL-1)) == 0) && (System.nanoTime() - deadline >= 0)) {
+                    interrupted = true;
+                    break;
+                }
+
+                dirty[idx] = false;
+                solves++;
+
+                int n = solveLine(idx, lineSolver, line, before, dirty);
+
+                if (n < 0)
+                    contradiction = true;
+                else
+                    found += n;
+            }
+
+            phaseFound.addAndGet(found);
+            parallelSolves.addAndGet(solves);
+        }
+
+        private final boolean[] dirty;
+        private final int       lo;
+        private final int       hi;
+    }
+
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 200*200;
+
+    // solve() statuses
+    public static final int SOLVED        = 0;
+    public static final int PARTIAL       = 1;
+    public static final int CONTRADICTION = 2;
+
+    private static final int DEADLINE_CHECK_INTERVAL = 16; // line solves between clock reads (a power of 2)
+    private static final int PHASE_SPLIT = 16; // lines per parallel leaf task
+    private static final byte[] BRANCH_STATES = { Dawgram.FULL, Dawgram.EMPTY };
+
+    private ThreadLocal<LineSolver> lineSolvers       = null;
+    private LineScheduler           scheduler         = null;
+    private byte[]                  grid              = null;  // cell states, row-major
+    private int[][]                 lineNums          = null;  // patterns, rows then columns
+    private int                     numRows           = -1;
+    private int                     numCols           = -1;
+    private int                     numUnknown        = 0;
+    private volatile boolean        contradiction     = false;
+    private long                    lineSolves        = 0;     // sequential line solver calls
+    private AtomicLong              parallelSolves    = new AtomicLong(); // parallel line solver calls
+    private AtomicLong              phaseFound        = new AtomicLong(); // cells deduced in a parallel phase
+    private long                    rounds            = 0;     // parallel rounds
+    private long                    linesSkipped      = 0;     // lines never queued
+    private int                     parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private byte[]                  firstSolution     = null;  // first solution found by search
+    private long                    searchNodes       = 0;     // search nodes visited
+    private long                    nodeBudget        = Long.MAX_VALUE; // search nodes allowed
+    private boolean                 gaveUp            = false; // has the search run out of nodes?
+    private int                     maxDepth          = 0;     // deepest search node
+    private long                    probes            = 0;     // cells tried by probing
+    private SplittableRandom        branchRandom      = null;  // random guesses when sampling
+    private SolverTrace             trace             = null;  // live trace, if being watched
+    private long                    deadline          = 0;     // System.nanoTime() to stop solve() at
+    private boolean                 hasDeadline       = false;
+    private long                    maxLineSolves     = Long.MAX_VALUE; // line solves to stop solve() at
+    private volatile boolean        interrupted       = false; // has solve() run out of time or budget?
+}
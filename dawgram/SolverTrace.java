@@ -0,0 +1,257 @@
+/**
+* A live trace of what a Solver does, for watching it work: a bounded, lock-free queue of events,
+* each packed into a long.
+*
+* The solver threads add events (several may add at once, e.g. during parallel propagation) and a
+* single viewer takes them.  When the queue is full, add() waits for the viewer, so the viewer
+* sets the pace of the solve; once the trace is closed, add() drops events instead of waiting.
+* A solver without a trace does no tracing work at all beyond a null check.
+*
+* The queue is an array of slots each with a sequence number (after Vyukov's bounded queue): a
+* slot is free for the producer at position p when its sequence is p, and full for the consumer
+* when it is p+1.
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+
+public class SolverTrace {
+    /**
+     * Constructor, for the default capacity
+     */
+    public SolverTrace() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param capacity the most events queued at once (rounded up to a power of 2)
+     */
+    public SolverTrace(int capacity) {
+        if ((capacity <= 0) || (capacity > MAX_CAPACITY))
+            throw new IllegalArgumentException("capacity must be 1.." + MAX_CAPACITY + " (" + capacity + ")");
+
+        int size = Integer.highestOneBit(capacity);
+
+        if (size < capacity)
+            size <<= 1;
+
+        this.mask   = size - 1;
+        this.events = new AtomicLongArray(size);
+        this.seqs   = new AtomicLongArray(size);
+
+        for (int i=0; i<size; i++)
+            seqs.set(i, i);
+    }
+
+    /**
+     * Add an event, waiting for room if the queue is full (unless the trace is closed)
+     *
+     * @param event the event (see the event makers, e.g. deduce())
+     */
+    public void add(long event) {
+        while (!offer(event)) {
+            if (closed) {
+                dropped.incrementAndGet();
+
+                return;
+            }
+
+            LockSupport.parkNanos(WAIT_NANOS);
+        }
+    }
+
+    /**
+     * Add an event if there is room
+     *
+     * @param event the event
+     * @return true if added, false if the queue is full
+     */
+    public boolean offer(long event) {
+        while (true) {
+            long pos = tail.get();
+            int  idx = (int) (pos & mask);
+            long dif = seqs.get(idx) - pos;
+
+            if (dif < 0)
+                return false; // the slot still holds an event from a lap ago
+
+            if ((dif == 0) && tail.compareAndSet(pos, pos+1)) {
+                events.set(idx, event);
+                seqs.set(idx, pos+1); // publish
+
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Take the next event (only one thread may take)
+     *
+     * @return the event, or NONE if the queue is empty
+     */
+    public long poll() {
+        int idx = (int) (head & mask);
+
+        if (seqs.get(idx) != head+1)
+            return NONE;
+
+        long event = events.get(idx);
+
+        seqs.set(idx, head + mask + 1); // free the slot for the next lap
+        head++;
+
+        return event;
+    }
+
+    /**
+     * Stop waiting for the viewer: from now on events that do not fit are dropped
+     */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Has the trace been closed?
+     *
+     * @return true if closed, otherwise false
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Retrieve the most events queued at once
+     *
+     * @return the capacity (a power of 2)
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Retrieve the number of events dropped since the trace was closed
+     *
+     * @return the number of dropped events
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Make a DEDUCE event: a cell deduced by a line solver (or by a probe)
+     */
+    public static long deduce(int row, int col, int state) {
+        return event(DEDUCE, row, col, state);
+    }
+
+    /**
+     * Make a GUESS event: a cell assumed by a probe or search, starting a new level of guesses
+     */
+    public static long guess(int row, int col, int state) {
+        return event(GUESS, row, col, state);
+    }
+
+    /**
+     * Make a BACKTRACK event: the latest guess, and everything since, is undone
+     */
+    public static long backtrack() {
+        return event(BACKTRACK, 0, 0, 0);
+    }
+
+    /**
+     * Make a LINE event: a line is being run through the line solver
+     *
+     * @param line the line index (rows then columns)
+     */
+    public static long line(int line) {
+        return event(LINE, line, 0, 0);
+    }
+
+    /**
+     * Make a CONTRADICTION event: a line cannot hold its pattern
+     *
+     * @param line the line index (rows then columns)
+     */
+    public static long contradiction(int line) {
+        return event(CONTRADICTION, line, 0, 0);
+    }
+
+    /**
+     * Pack an event into a long: type (4 bits), state (4 bits), a (28 bits), b (28 bits)
+     */
+    private static long event(int type, int a, int b, int state) {
+        return ((long) type << 60) | ((long) state << 56) | ((long) a << 28) | b;
+    }
+
+    /**
+     * Retrieve the type of an event
+     *
+     * @param event the event
+     * @return DEDUCE, GUESS, BACKTRACK, LINE or CONTRADICTION
+     */
+    public static int getType(long event) {
+        return (int) (event >>> 60);
+    }
+
+    /**
+     * Retrieve the row of a DEDUCE or GUESS event, or the line of a LINE or CONTRADICTION event
+     *
+     * @param event the event
+     * @return the row or line
+     */
+    public static int getRow(long event) {
+        return (int) ((event >>> 28) & FIELD_MASK);
+    }
+
+    /**
+     * Retrieve the column of a DEDUCE or GUESS event
+     *
+     * @param event the event
+     * @return the column
+     */
+    public static int getCol(long event) {
+        return (int) (event & FIELD_MASK);
+    }
+
+    /**
+     * Retrieve the cell state of a DEDUCE or GUESS event
+     *
+     * @param event the event
+     * @return the state
+     */
+    public static int getState(long event) {
+        return (int) ((event >>> 56) & 0xF);
+    }
+
+    // event types
+    public static final int DEDUCE        = 1;
+    public static final int GUESS         = 2;
+    public static final int BACKTRACK     = 3;
+    public static final int LINE          = 4;
+    public static final int CONTRADICTION = 5;
+
+    public static final long NONE             = -1;      // poll() on an empty queue
+    public static final int  DEFAULT_CAPACITY = 1 << 16;
+    private static final int MAX_CAPACITY     = 1 << 30;
+    private static final long FIELD_MASK      = (1L << 28) - 1;
+    private static final long WAIT_NANOS      = 100000;  // between retries of a full queue
+
+    private final int             mask;
+    private final AtomicLongArray events;                 // the event in each slot
+    private final AtomicLongArray seqs;                   // the sequence number of each slot
+    private final AtomicLong      tail    = new AtomicLong(); // the next position to add at
+    private long                  head    = 0;            // the next position to take (viewer only)
+    private volatile boolean      closed  = false;
+    private final AtomicLong      dropped = new AtomicLong();
+}
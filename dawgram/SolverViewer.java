@@ -0,0 +1,247 @@
+/**
+* A window to watch a Solver work, live: the events of a SolverTrace are replayed onto a copy of
+* the puzzle shown on a BoardView.
+*
+* A timer drains the trace at a capped frame rate, taking at most as many events per frame as the
+* speed slider allows (so the solver, which waits when the trace is full, runs at the speed
+* chosen).  Deduced and guessed cells are shown as they are set, the line being solved is
+* highlighted, and a backtrack undoes the cells set since its guess.  The viewer keeps its own
+* copy of the cell states and journal of guesses, and hands each frame's changes to the shown
+* puzzle as one batch that is not journalled for undo, so a long solve neither grows the puzzle's
+* undo stack nor notifies the board once per event.  Closing the window closes the trace, letting
+* the solver run on at full speed.
+*
+* @author OTechCup
+* @credits ["Mr. O"]
+* @version 0.1
+*/
+
+
+package dawgram;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Scanner;
+
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JSlider;
+import javax.swing.Timer;
+
+
+@SuppressWarnings("serial")
+public class SolverViewer extends JFrame {
+    /**
+     * Constructor, opening the window (call on the Event Dispatch Thread)
+     *
+     * @param puzzle the puzzle being solved (copied as it is now; never changed)
+     * @param trace the trace the solver adds its events to
+     */
+    public SolverViewer(Dawgram puzzle, SolverTrace trace) {
+        if (puzzle == null)
+            throw new IllegalArgumentException("puzzle cannot be null");
+
+        if (trace == null)
+            throw new IllegalArgumentException("trace cannot be null");
+
+        this.trace   = trace;
+        this.mirror  = new Dawgram(new Scanner(puzzle.toStringAsNonFile()));
+        this.numRows = puzzle.getNumRows();
+
+        StringBuffer states = new StringBuffer();
+
+        for (int row=0; row<puzzle.getNumRows(); row++)
+            for (int col=0; col<puzzle.getNumCols(); col++)
+                states.append(puzzle.getState(row, col));
+
+        mirror.setStatesByString(states.toString());
+        cells = mirror.getGrid().toArray();
+
+        board  = new BoardView(mirror);
+        speed  = new JSlider(0, SPEED_STEPS, SPEED_STEPS/2);
+        status = new JLabel();
+
+        status.setForeground(Color.WHITE);
+
+        JPanel controls = new JPanel(new BorderLayout(10, 0));
+
+        controls.setBackground(Color.BLACK);
+        controls.add(new JLabel("Speed"), BorderLayout.WEST);
+        controls.add(speed, BorderLayout.CENTER);
+        controls.add(status, BorderLayout.SOUTH);
+
+        this.setTitle("Dawgram solver");
+        this.getContentPane().setBackground(Color.BLACK);
+        this.getContentPane().add(board, BorderLayout.CENTER);
+        this.getContentPane().add(controls, BorderLayout.SOUTH);
+        this.setSize(560, 600);
+        this.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        this.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                frameTimer.stop();
+                trace.close();
+            }
+        });
+
+        frameTimer = new Timer(1000/MAX_FPS, e -> frame());
+        frameTimer.start();
+
+        this.setVisible(true);
+    }
+
+    /**
+     * Retrieve the events per second allowed by the speed slider: logarithmic, from 1 up to
+     * MAX_SPEED, with the slider at its top meaning unlimited
+     *
+     * @return the events per second
+     */
+    public double getSpeed() {
+        if (speed.getValue() == SPEED_STEPS)
+            return Double.POSITIVE_INFINITY;
+
+        return Math.pow(MAX_SPEED, (double) speed.getValue() / SPEED_STEPS);
+    }
+
+    /**
+     * Replay one frame's worth of events (at unlimited speed, at most a queue's worth, so a fast
+     * solver cannot keep the event thread replaying forever)
+     */
+    private void frame() {
+        double allowance = getSpeed() / MAX_FPS + carry;
+        long   budget    = Double.isInfinite(allowance) ? trace.getCapacity() : (long) allowance;
+        int    line      = -1;
+
+        carry = Double.isInfinite(allowance) ? 0 : Math.min(1.0, allowance - budget); // fractions add up over frames
+
+        for (long n=0; n<budget; n++) {
+            long event = trace.poll();
+
+            if (event == SolverTrace.NONE)
+                break;
+
+            switch (SolverTrace.getType(event)) {
+                case SolverTrace.DEDUCE:
+                    set(SolverTrace.getRow(event), SolverTrace.getCol(event), SolverTrace.getState(event));
+                    deductions++;
+                    break;
+
+                case SolverTrace.GUESS:
+                    push();
+                    set(SolverTrace.getRow(event), SolverTrace.getCol(event), SolverTrace.getState(event));
+                    guesses++;
+                    break;
+
+                case SolverTrace.BACKTRACK:
+                    pop();
+                    backtracks++;
+                    break;
+
+                case SolverTrace.LINE:
+                    line = SolverTrace.getRow(event);
+                    break;
+
+                case SolverTrace.CONTRADICTION:
+                    line = SolverTrace.getRow(event);
+                    contradictions++;
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        if (!changes.isEmpty()) {
+            mirror.showStates(changes);
+            changes.clear();
+        }
+
+        if (line >= 0)
+            board.setActiveLine(line);
+
+        status.setText(String.format(" %s  depth %d  deduced %d  guesses %d  backtracks %d  contradictions %d",
+                                     (line < 0) ? "" : ((line < numRows) ? "row " + line : "col " + (line-numRows)),
+                                     depth, deductions, guesses, backtracks, contradictions));
+    }
+
+    /**
+     * Set a cell of the copy (shown at the end of the frame), remembering its old state if under
+     * a guess
+     */
+    private void set(int row, int col, int state) {
+        int cell = row*mirror.getNumCols() + col;
+
+        if (depth > 0) {
+            if (logSize == logCells.length) {
+                logCells  = Arrays.copyOf(logCells, logSize*2);
+                logStates = Arrays.copyOf(logStates, logSize*2);
+            }
+
+            logCells[logSize]  = cell;
+            logStates[logSize] = cells[cell];
+            logSize++;
+        }
+
+        cells[cell] = (byte) state;
+        changes.add(new Assign(row, col, state));
+    }
+
+    /**
+     * Start a new level of guesses
+     */
+    private void push() {
+        if (depth == marks.length)
+            marks = Arrays.copyOf(marks, depth*2);
+
+        marks[depth++] = logSize;
+    }
+
+    /**
+     * Undo the latest level of guesses, restoring the cells set since it started
+     */
+    private void pop() {
+        if (depth == 0)
+            return;
+
+        int mark = marks[--depth];
+        int cols = mirror.getNumCols();
+
+        while (logSize > mark) {
+            logSize--;
+            cells[logCells[logSize]] = logStates[logSize];
+            changes.add(new Assign(logCells[logSize] / cols, logCells[logSize] % cols, logStates[logSize]));
+        }
+    }
+
+    public static final int MAX_FPS     = 30;
+    public static final int MAX_SPEED   = 100000; // events per second, below unlimited
+    private static final int SPEED_STEPS = 50;    // slider steps (the top step is unlimited)
+
+    private SolverTrace trace      = null;
+    private Dawgram     mirror     = null;  // the copy of the puzzle the events are replayed onto
+    private int         numRows    = -1;
+    private BoardView   board      = null;
+    private JSlider     speed      = null;
+    private JLabel      status     = null;
+    private Timer       frameTimer = null;
+    private double      carry      = 0;     // the fraction of an event left over from the last frame
+    private byte[]      cells      = null;  // the cell states, row-major, ahead of the mirror in a frame
+
+    private int         depth      = 0;             // guesses in force
+    private int[]       marks      = new int[16];   // the log size at each guess
+    private int[]       logCells   = new int[256];  // cells set under guesses, in order
+    private byte[]      logStates  = new byte[256]; // their states before
+    private int         logSize    = 0;
+
+    private ArrayList<Assign> changes = new ArrayList<>(); // cells set this frame, shown at its end
+
+    private long        deductions     = 0;
+    private long        guesses        = 0;
+    private long        backtracks     = 0;
+    private long        contradictions = 0;
+}